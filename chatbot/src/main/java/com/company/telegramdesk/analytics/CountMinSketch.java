@@ -0,0 +1,89 @@
+package com.company.telegramdesk.analytics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Count-min sketch: approximate per-key counts in fixed memory.
+ * Estimates never undercount; the overcount is at most total * e / width
+ * with probability 1 - e^-depth.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final long[][] counts;
+
+    public CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+        this.counts = new long[depth][width];
+    }
+
+    public void add(long key) {
+        long hash = Hashing.mix64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counts[row][index(h1, h2, row)]++;
+        }
+    }
+
+    public long estimate(long key) {
+        long hash = Hashing.mix64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row][index(h1, h2, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Add another sketch of the same shape into this one
+     */
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge sketches of different shape");
+        }
+        for (int row = 0; row < depth; row++) {
+            for (int col = 0; col < width; col++) {
+                counts[row][col] += other.counts[row][col];
+            }
+        }
+    }
+
+    public void clear() {
+        for (long[] row : counts) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(depth);
+        out.writeInt(width);
+        for (long[] row : counts) {
+            for (long count : row) {
+                out.writeLong(count);
+            }
+        }
+    }
+
+    static CountMinSketch readFrom(DataInputStream in) throws IOException {
+        CountMinSketch sketch = new CountMinSketch(in.readInt(), in.readInt());
+        for (long[] row : sketch.counts) {
+            for (int col = 0; col < row.length; col++) {
+                row[col] = in.readLong();
+            }
+        }
+        return sketch;
+    }
+
+    // Kirsch-Mitzenmacher: row hashes derived from two halves of one 64-bit hash
+    private int index(int h1, int h2, int row) {
+        return Math.floorMod(h1 + row * h2, width);
+    }
+}
@@ -0,0 +1,19 @@
+package com.company.telegramdesk.analytics;
+
+final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * 64-bit finalizer from MurmurHash3: spreads sequential ids over all bits
+     */
+    static long mix64(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
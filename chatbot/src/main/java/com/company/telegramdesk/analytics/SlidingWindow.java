@@ -0,0 +1,55 @@
+package com.company.telegramdesk.analytics;
+
+import java.util.function.Supplier;
+
+/**
+ * Ring of time buckets, each holding a TrafficSummary. A bucket is reset
+ * when the ring wraps around to it, so memory stays fixed and the window
+ * slides in steps of one bucket.
+ */
+public class SlidingWindow {
+
+    private final long bucketMillis;
+    private final TrafficSummary[] buckets;
+    private final long[] bucketStarts;
+    private final Supplier<TrafficSummary> emptySummary;
+
+    public SlidingWindow(int bucketCount, long bucketMillis, Supplier<TrafficSummary> emptySummary) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = new TrafficSummary[bucketCount];
+        this.bucketStarts = new long[bucketCount];
+        this.emptySummary = emptySummary;
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = emptySummary.get();
+            bucketStarts[i] = -1;
+        }
+    }
+
+    public synchronized void record(long chatId, Long userId, long now) {
+        long start = now - Math.floorMod(now, bucketMillis);
+        int index = (int) Math.floorMod(start / bucketMillis, (long) buckets.length);
+        if (bucketStarts[index] != start) {
+            buckets[index].clear();
+            bucketStarts[index] = start;
+        }
+        buckets[index].record(chatId, userId);
+    }
+
+    /**
+     * Merged copy of the buckets that fall inside the window ending now
+     */
+    public synchronized TrafficSummary snapshot(long now) {
+        TrafficSummary merged = emptySummary.get();
+        long oldest = now - now % bucketMillis - (buckets.length - 1) * bucketMillis;
+        for (int i = 0; i < buckets.length; i++) {
+            if (bucketStarts[i] >= oldest) {
+                merged.merge(buckets[i]);
+            }
+        }
+        return merged;
+    }
+
+    public long getLengthMillis() {
+        return bucketMillis * buckets.length;
+    }
+}
@@ -0,0 +1,146 @@
+package com.company.telegramdesk.analytics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Traffic seen in one time slice: message total, per-chat counts
+ * (count-min sketch), distinct users (HyperLogLog) and a bounded set of
+ * candidate hot chats. Summaries of different slices or nodes merge
+ * losslessly, except that candidates beyond the capacity are dropped.
+ */
+public class TrafficSummary {
+
+    private final int candidateCapacity;
+    private final CountMinSketch chats;
+    private final HyperLogLog users;
+    private final Map<Long, Long> candidates = new HashMap<>();  // chat -> count estimate when last seen
+    private long messages;
+    private long coldestBound;  // No candidate is below this; estimates only grow until clear/merge
+
+    public TrafficSummary(int depth, int width, int precision, int candidateCapacity) {
+        this(new CountMinSketch(depth, width), new HyperLogLog(precision), candidateCapacity);
+    }
+
+    private TrafficSummary(CountMinSketch chats, HyperLogLog users, int candidateCapacity) {
+        this.chats = chats;
+        this.users = users;
+        this.candidateCapacity = candidateCapacity;
+    }
+
+    public void record(long chatId, Long userId) {
+        messages++;
+        chats.add(chatId);
+        if (userId != null) {
+            users.add(userId);
+        }
+        offer(chatId, chats.estimate(chatId));
+    }
+
+    public void merge(TrafficSummary other) {
+        messages += other.messages;
+        chats.merge(other.chats);
+        users.merge(other.users);
+
+        Set<Long> ids = new HashSet<>(candidates.keySet());
+        ids.addAll(other.candidates.keySet());
+        candidates.clear();
+        coldestBound = 0;
+        for (Long id : ids) {
+            offer(id, chats.estimate(id));
+        }
+    }
+
+    public void clear() {
+        messages = 0;
+        chats.clear();
+        users.clear();
+        candidates.clear();
+        coldestBound = 0;
+    }
+
+    public long getMessages() {
+        return messages;
+    }
+
+    public long getUniqueUsers() {
+        return users.estimate();
+    }
+
+    /**
+     * Busiest chats with their estimated message counts, highest first
+     */
+    public List<Map.Entry<Long, Long>> topChats(int limit) {
+        return candidates.keySet().stream()
+                .map(id -> Map.entry(id, chats.estimate(id)))
+                .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .toList();
+    }
+
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(candidateCapacity);
+            out.writeLong(messages);
+            chats.writeTo(out);
+            users.writeTo(out);
+            out.writeInt(candidates.size());
+            for (Long id : candidates.keySet()) {
+                out.writeLong(id);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize traffic summary", e);
+        }
+    }
+
+    public static TrafficSummary fromBytes(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int capacity = in.readInt();
+        long messages = in.readLong();
+        TrafficSummary summary = new TrafficSummary(CountMinSketch.readFrom(in), HyperLogLog.readFrom(in), capacity);
+        summary.messages = messages;
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            long id = in.readLong();
+            summary.candidates.put(id, summary.chats.estimate(id));
+        }
+        return summary;
+    }
+
+    private void offer(long chatId, long estimate) {
+        if (candidates.containsKey(chatId) || candidates.size() < candidateCapacity) {
+            candidates.put(chatId, estimate);
+            return;
+        }
+        if (estimate <= coldestBound) {
+            return;  // Cannot displace any candidate, skip the scan
+        }
+        Map.Entry<Long, Long> coldest = null;
+        for (Map.Entry<Long, Long> entry : candidates.entrySet()) {
+            if (coldest == null || entry.getValue() < coldest.getValue()) {
+                coldest = entry;
+            }
+        }
+        if (coldest == null) {
+            return;
+        }
+        coldestBound = coldest.getValue();
+        if (estimate > coldest.getValue()) {
+            candidates.remove(coldest.getKey());
+            candidates.put(chatId, estimate);
+        }
+    }
+}
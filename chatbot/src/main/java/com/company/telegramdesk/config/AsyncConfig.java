@@ -0,0 +1,55 @@
+package com.company.telegramdesk.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Executor for outbound Telegram calls that must not block the request thread
+     */
+    @Bean(name = "telegramSendExecutor")
+    public ThreadPoolTaskExecutor telegramSendExecutor(
+            @Value("${telegram.send.pool-size:8}") int poolSize,
+            @Value("${telegram.send.queue-capacity:1000}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("telegram-send-");
+        // When the queue is full, send on the caller thread instead of dropping the reply
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for "message received" acks. Trailing acks are submitted from the ack timer
+     * thread, which must never make the HTTP call itself: when the queue is full the ack is
+     * rejected (and dropped by AckCoalescer) instead of running on the caller.
+     */
+    @Bean(name = "telegramAckExecutor")
+    public ThreadPoolTaskExecutor telegramAckExecutor(
+            @Value("${telegram.ack.pool-size:4}") int poolSize,
+            @Value("${telegram.ack.queue-capacity:1000}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("telegram-ack-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,49 @@
+package com.company.telegramdesk.config;
+
+import com.company.telegramdesk.model.dto.ArchivedConversation;
+import com.company.telegramdesk.model.dto.LiveMessage;
+import com.company.telegramdesk.model.dto.MessageSnapshot;
+import com.company.telegramdesk.model.dto.TrafficStats;
+import com.company.telegramdesk.model.dto.telegram.TelegramChat;
+import com.company.telegramdesk.model.dto.telegram.TelegramDocument;
+import com.company.telegramdesk.model.dto.telegram.TelegramMessage;
+import com.company.telegramdesk.model.dto.telegram.TelegramPhotoSize;
+import com.company.telegramdesk.model.dto.telegram.TelegramUpdate;
+import com.company.telegramdesk.model.dto.telegram.TelegramUser;
+import com.company.telegramdesk.model.dto.zoho.ZohoAuthor;
+import com.company.telegramdesk.model.dto.zoho.ZohoThread;
+import com.company.telegramdesk.model.dto.zoho.ZohoWebhookEvent;
+import com.company.telegramdesk.model.entity.Conversation;
+import com.company.telegramdesk.model.entity.Message;
+import com.company.telegramdesk.service.ConversationArchive;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Reflection hints for Spring AOT / GraalVM native image.
+ * Jackson binds the Telegram and Zoho DTOs (Lombok getters/setters) and the Redis
+ * serializer writes entities with type information, so both need reflection.
+ */
+@Configuration
+@RegisterReflectionForBinding({
+        TelegramUpdate.class,
+        TelegramMessage.class,
+        TelegramUser.class,
+        TelegramChat.class,
+        TelegramPhotoSize.class,
+        TelegramDocument.class,
+        ZohoWebhookEvent.class,
+        ZohoThread.class,
+        ZohoAuthor.class,
+        Conversation.class,
+        Message.class,
+        MessageSnapshot.class,
+        LiveMessage.class,
+        TrafficStats.class,
+        TrafficStats.HotChat.class,
+        ArchivedConversation.class,
+        ConversationArchive.SegmentIndex.class,
+        ConversationArchive.BlockIndex.class
+})
+public class NativeHintsConfig {
+}
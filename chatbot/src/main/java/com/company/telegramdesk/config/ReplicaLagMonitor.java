@@ -0,0 +1,77 @@
+package com.company.telegramdesk.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Measures how far the read replica is behind the primary.
+ * Read-only work is only sent to the replica while the lag is below the limit.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // NULL unless the WAL receiver is streaming from the primary (a disconnected replica replays
+    // everything it received and would otherwise look current forever). Then 0 when everything
+    // received has been replayed, otherwise the age of the last replayed transaction.
+    // Reading pg_stat_wal_receiver.status needs pg_read_all_stats for the replica user.
+    private static final String LAG_QUERY =
+            "SELECT CASE " +
+                    "WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL " +
+                    "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+                    "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    private final DataSource replicaDataSource;
+    private final long maxLagMs;
+
+    private volatile long lagMs = Long.MAX_VALUE;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagMs, MeterRegistry meterRegistry) {
+        this.replicaDataSource = replicaDataSource;
+        this.maxLagMs = maxLagMs;
+        Gauge.builder("datasource.replica.lag", this, m -> m.lagMs == Long.MAX_VALUE ? -1 : m.lagMs)
+                .description("Replica replay lag in ms (-1 = unreachable)")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, m -> m.isReplicaUsable() ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        boolean wasUsable = isReplicaUsable();
+        try (Connection connection = replicaDataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+            if (rs.next()) {
+                double lag = rs.getDouble(1);
+                lagMs = rs.wasNull() ? Long.MAX_VALUE : (long) lag;  // NULL: not streaming
+            } else {
+                lagMs = Long.MAX_VALUE;
+            }
+        } catch (Exception e) {
+            lagMs = Long.MAX_VALUE;
+            log.debug("Replica lag check failed: {}", e.getMessage());
+        }
+
+        boolean usable = isReplicaUsable();
+        if (wasUsable != usable) {
+            if (usable) {
+                log.info("✅ Read replica back in use (lag {} ms)", lagMs);
+            } else {
+                log.warn("Read replica lagging, not streaming or unreachable (lag {} ms), reads go to the primary",
+                        lagMs == Long.MAX_VALUE ? "unknown" : lagMs);
+            }
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return lagMs <= maxLagMs;
+    }
+}
@@ -1,12 +1,28 @@
 package com.company.telegramdesk.controller;
 
 import com.company.telegramdesk.config.TelegramWebhookRegistrar;
+import com.company.telegramdesk.model.dto.ArchivedConversation;
+import com.company.telegramdesk.model.dto.LiveMessage;
+import com.company.telegramdesk.model.dto.MessageSnapshot;
+import com.company.telegramdesk.model.dto.TrafficStats;
+import com.company.telegramdesk.service.ConversationArchive;
+import com.company.telegramdesk.service.ConversationCacheWarmer;
+import com.company.telegramdesk.service.ConversationService;
+import com.company.telegramdesk.service.LiveMessageStream;
 import com.company.telegramdesk.service.TelegramService;
+import com.company.telegramdesk.service.TrafficAnalytics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -17,6 +33,11 @@ public class AdminController {
 
     private final TelegramWebhookRegistrar webhookRegistrar;
     private final TelegramService telegramService;
+    private final ConversationCacheWarmer cacheWarmer;
+    private final ConversationService conversationService;
+    private final ConversationArchive conversationArchive;
+    private final LiveMessageStream liveMessageStream;
+    private final TrafficAnalytics trafficAnalytics;
 
     @PostMapping("/webhook/register")
     public ResponseEntity<String> registerWebhook() {
@@ -65,8 +86,76 @@ public class AdminController {
         }
     }
 
+    @GetMapping("/conversations/{chatId}/messages")
+    public ResponseEntity<List<MessageSnapshot>> getMessages(
+            @PathVariable String chatId,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) Long beforeId
+    ) {
+        int pageSize = Math.max(1, Math.min(limit, 200));
+        List<MessageSnapshot> messages = beforeId == null
+                ? conversationService.getRecentMessages(chatId, pageSize)
+                : conversationService.getMessagesBefore(chatId, beforeId, pageSize);
+        return ResponseEntity.ok(messages);
+    }
+
+    @GetMapping("/archive/{chatId}")
+    public ResponseEntity<List<ArchivedConversation>> getArchivedConversations(
+            @PathVariable String chatId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        try {
+            return ResponseEntity.ok(conversationArchive.find(chatId, from, to));
+        } catch (Exception e) {
+            log.error("Error reading archive for chat {}", chatId, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Approximate traffic for the last hour or day: messages, distinct users, busiest chats
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<TrafficStats> getTrafficStats(
+            @RequestParam(defaultValue = "hour") String window,
+            @RequestParam(defaultValue = "10") int top
+    ) {
+        try {
+            return ResponseEntity.ok(trafficAnalytics.getStats(window, top));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Live feed of new messages (Server-Sent Events). Browsers resume with Last-Event-ID;
+     * other clients can pass the last seen stream id as ?since=
+     */
+    @GetMapping(value = "/stream/messages", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<LiveMessage>> streamMessages(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) String chatId
+    ) {
+        return liveMessageStream.subscribe(lastEventId != null ? lastEventId : since, chatId);
+    }
+
+    @PostMapping("/conversations/{chatId}/ticket")
+    public ResponseEntity<String> linkTicket(@PathVariable String chatId, @RequestParam String ticketId) {
+        return conversationService.linkTicket(chatId, ticketId)
+                .map(c -> ResponseEntity.ok("Conversation " + c.getId() + " linked to ticket " + ticketId))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
+        if (!cacheWarmer.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                    "status", "STARTING",
+                    "service", "telegram-zoho-desk"
+            ));
+        }
         return ResponseEntity.ok(Map.of(
                 "status", "UP",
                 "service", "telegram-zoho-desk"
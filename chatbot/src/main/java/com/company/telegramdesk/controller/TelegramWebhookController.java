@@ -1,7 +1,12 @@
 package com.company.telegramdesk.controller;
 
+import com.company.telegramdesk.logging.LogSampler;
+import com.company.telegramdesk.model.dto.telegram.TelegramMessage;
 import com.company.telegramdesk.model.dto.telegram.TelegramUpdate;
 import com.company.telegramdesk.service.ConversationService;
+import com.company.telegramdesk.service.DurableIngest;
+import com.company.telegramdesk.service.IngressRateLimiter;
+import com.company.telegramdesk.service.UpdateForwarder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -14,23 +19,59 @@ import org.springframework.web.bind.annotation.*;
 public class TelegramWebhookController {
 
     private final ConversationService conversationService;
+    private final LogSampler logSampler;
+    private final IngressRateLimiter rateLimiter;
+    private final DurableIngest durableIngest;
+    private final UpdateForwarder updateForwarder;
 
     @PostMapping("/telegram")
-    public ResponseEntity<String> handleWebhook(@RequestBody TelegramUpdate update) {
-        log.info("Received Telegram update ID: {}", update.getUpdateId());
+    public ResponseEntity<String> handleWebhook(
+            @RequestBody TelegramUpdate update,
+            @RequestHeader(value = UpdateForwarder.FORWARDED_BY_HEADER, required = false) String forwardedBy,
+            @RequestHeader(value = UpdateForwarder.TOKEN_HEADER, required = false) String internalToken
+    ) {
+        long suppressed = logSampler.sample("webhook.received");
+        if (suppressed >= 0) {
+            log.info("Received Telegram update ID: {} ({} similar suppressed)", update.getUpdateId(), suppressed);
+        }
 
-        try {
-            if (update.getMessage() != null && update.getMessage().getText() != null) {
-                conversationService.processIncomingMessage(update);
-            } else {
-                log.debug("Skipping non-text message or empty update");
+        TelegramMessage message = update.getMessage();
+        if (message == null || message.getText() == null) {
+            log.debug("Skipping non-text message or empty update");
+            return ResponseEntity.ok("OK");
+        }
+
+        // Hand the update to the chat's owner node; updates from other nodes are never forwarded again
+        String chatId = message.getChat() != null ? message.getChat().getId().toString() : null;
+        if (!updateForwarder.isForwarded(forwardedBy, internalToken)
+                && updateForwarder.forwardIfRemote(update, chatId)) {
+            return ResponseEntity.ok("FORWARDED");
+        }
+
+        // Shed before any database or Redis work; 200 so Telegram does not redeliver
+        IngressRateLimiter.Decision decision = rateLimiter.tryAcquire(
+                message.getChat() != null ? message.getChat().getId() : null,
+                message.getFrom() != null ? message.getFrom().getId() : null);
+        if (decision != IngressRateLimiter.Decision.ACCEPTED) {
+            long shed = logSampler.sample("webhook.shed");
+            if (shed >= 0) {
+                log.warn("Dropped Telegram update ID: {} ({}, {} similar suppressed)", update.getUpdateId(), decision, shed);
             }
+            return ResponseEntity.ok("DROPPED");
+        }
 
+        try {
+            if (durableIngest.append(update)) {
+                return ResponseEntity.ok("OK");  // In the ingest log; a consumer persists it
+            }
+            conversationService.processIncomingMessage(update);
             return ResponseEntity.ok("OK");
         } catch (Exception e) {
             log.error("Error processing webhook", e);
             // Return 200 to Telegram to avoid retries for application errors
             return ResponseEntity.ok("ERROR");
+        } finally {
+            rateLimiter.release();
         }
     }
 
@@ -0,0 +1,64 @@
+package com.company.telegramdesk.controller;
+
+import com.company.telegramdesk.model.dto.zoho.ZohoWebhookEvent;
+import com.company.telegramdesk.service.AgentReplyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+@RestController
+@RequestMapping("/webhook")
+@Slf4j
+@RequiredArgsConstructor
+public class ZohoWebhookController {
+
+    private final AgentReplyService agentReplyService;
+
+    @Value("${zoho.webhook-secret:}")
+    private String webhookSecret;
+
+    @PostMapping("/zoho")
+    public ResponseEntity<String> handleWebhook(
+            @RequestHeader(value = "X-Webhook-Secret", required = false) String secret,
+            @RequestBody List<ZohoWebhookEvent> events
+    ) {
+        // Fail closed: without a configured secret anyone could post agent replies into chats
+        if (webhookSecret.isBlank()) {
+            log.error("❌ Rejected Zoho webhook: zoho.webhook-secret is not configured");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Webhook secret not configured");
+        }
+        if (secret == null || !MessageDigest.isEqual(
+                webhookSecret.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Rejected Zoho webhook with invalid secret");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid secret");
+        }
+
+        log.info("Received {} Zoho Desk event(s)", events.size());
+
+        int accepted = 0;
+        for (ZohoWebhookEvent event : events) {
+            try {
+                if (agentReplyService.handle(event)) {
+                    accepted++;
+                }
+            } catch (Exception e) {
+                log.error("Error processing Zoho event {}", event.getEventType(), e);
+            }
+        }
+
+        log.debug("Accepted {} of {} Zoho events", accepted, events.size());
+        return ResponseEntity.ok("OK");
+    }
+
+    @GetMapping("/zoho")
+    public ResponseEntity<String> handleGet() {
+        return ResponseEntity.ok("Zoho Desk webhook is active");
+    }
+}
@@ -0,0 +1,61 @@
+package com.company.telegramdesk.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter for per-message log lines.
+ * Each log site may log {@code per-second} lines per second; beyond that only
+ * one line in {@code sample-rate} is logged, carrying the number of lines
+ * suppressed since the previous one. Disabled (log everything) unless configured.
+ */
+@Component
+public class LogSampler {
+
+    @Value("${logging.sampling.enabled:false}")
+    private boolean enabled;
+
+    @Value("${logging.sampling.per-second:20}")
+    private int perSecond;
+
+    @Value("${logging.sampling.sample-rate:100}")
+    private int sampleRate;
+
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+
+    /**
+     * Returns -1 if the line should be dropped, otherwise the number of lines
+     * suppressed at this site since the last one that was logged
+     */
+    public long sample(String site) {
+        if (!enabled) {
+            return 0;
+        }
+        return sites.computeIfAbsent(site, s -> new Site()).sample(perSecond, sampleRate);
+    }
+
+    private static final class Site {
+        private final AtomicLong windowStart = new AtomicLong();
+        private final AtomicLong inWindow = new AtomicLong();
+        private final AtomicLong suppressed = new AtomicLong();
+
+        long sample(int perSecond, int sampleRate) {
+            long second = System.currentTimeMillis() / 1000;
+            long start = windowStart.get();
+            if (start != second && windowStart.compareAndSet(start, second)) {
+                inWindow.set(0);
+            }
+
+            long n = inWindow.incrementAndGet();
+            if (n <= perSecond || (n - perSecond) % sampleRate == 0) {
+                return suppressed.getAndSet(0);
+            }
+            suppressed.incrementAndGet();
+            return -1;
+        }
+    }
+}
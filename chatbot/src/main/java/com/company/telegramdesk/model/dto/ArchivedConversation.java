@@ -0,0 +1,50 @@
+package com.company.telegramdesk.model.dto;
+
+import com.company.telegramdesk.model.entity.Conversation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A conversation with its full message history, as stored in the archive segments
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedConversation {
+
+    private Long conversationId;
+
+    private String chatId;
+
+    private String username;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String zohoDeskTicketId;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime lastMessageTime;
+
+    private List<MessageSnapshot> messages;
+
+    public static ArchivedConversation of(Conversation conversation, List<MessageSnapshot> messages) {
+        return new ArchivedConversation(
+                conversation.getId(),
+                conversation.getChatId(),
+                conversation.getUsername(),
+                conversation.getFirstName(),
+                conversation.getLastName(),
+                conversation.getZohoDeskTicketId(),
+                conversation.getCreatedAt(),
+                conversation.getLastMessageTime(),
+                messages
+        );
+    }
+}
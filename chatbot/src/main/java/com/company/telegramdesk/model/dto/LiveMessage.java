@@ -0,0 +1,30 @@
+package com.company.telegramdesk.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A persisted message as published on the live stream; streamId is the Redis Stream entry id
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveMessage {
+
+    private String streamId;
+
+    private String chatId;
+
+    private Long messageId;
+
+    private Long conversationId;
+
+    private String sender;  // "user" or "agent"
+
+    private String text;
+
+    private LocalDateTime timestamp;
+}
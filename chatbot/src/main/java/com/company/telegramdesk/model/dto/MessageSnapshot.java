@@ -0,0 +1,43 @@
+package com.company.telegramdesk.model.dto;
+
+import com.company.telegramdesk.model.entity.Message;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Detached copy of a message, used for the recent-message window and history reads
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private Long conversationId;
+
+    private String text;
+
+    private String sender;  // "user" or "agent"
+
+    private String telegramMessageId;
+
+    private LocalDateTime timestamp;
+
+    public static MessageSnapshot of(Message message, Long conversationId) {
+        return new MessageSnapshot(
+                message.getId(),
+                conversationId,
+                message.getText(),
+                message.getSender(),
+                message.getTelegramMessageId(),
+                message.getTimestamp()
+        );
+    }
+}
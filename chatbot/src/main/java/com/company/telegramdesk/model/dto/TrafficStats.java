@@ -0,0 +1,36 @@
+package com.company.telegramdesk.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Approximate traffic over a sliding window, merged across the live nodes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrafficStats {
+
+    private String window;  // "hour" or "day"
+
+    private long messages;
+
+    private long uniqueUsers;  // HyperLogLog estimate
+
+    private int nodes;  // Nodes whose summaries were merged
+
+    private List<HotChat> hotChats;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HotChat {
+
+        private String chatId;
+
+        private long estimatedMessages;  // Count-min estimate, never below the true count
+    }
+}
@@ -0,0 +1,12 @@
+package com.company.telegramdesk.model.dto.zoho;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ZohoAuthor {
+    private String name;
+
+    private String type;  // "AGENT", "END_USER"
+}
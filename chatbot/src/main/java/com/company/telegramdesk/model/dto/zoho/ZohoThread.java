@@ -0,0 +1,22 @@
+package com.company.telegramdesk.model.dto.zoho;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ZohoThread {
+    private String id;
+
+    private String ticketId;
+
+    private String direction;  // "in" (customer) or "out" (agent)
+
+    private String channel;
+
+    private String content;  // HTML body
+
+    private String summary;  // Plain text preview
+
+    private ZohoAuthor author;
+}
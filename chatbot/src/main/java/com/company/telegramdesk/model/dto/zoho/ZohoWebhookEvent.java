@@ -0,0 +1,16 @@
+package com.company.telegramdesk.model.dto.zoho;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ZohoWebhookEvent {
+    private String eventType;  // e.g. "Ticket_Thread_Add"
+
+    private String orgId;
+
+    private Long eventTime;  // Epoch millis when Zoho raised the event
+
+    private ZohoThread payload;
+}
@@ -1,5 +1,6 @@
 package com.company.telegramdesk.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -39,6 +40,7 @@ public class Conversation implements Serializable {
     @Column(length = 100)
     private String lastName;
 
+    @JsonIgnore  // Cached in Redis without the (lazy) message history
     @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @OrderBy("timestamp ASC")
     private List<Message> messages = new ArrayList<>();
@@ -52,6 +54,20 @@ public class Conversation implements Serializable {
     @Column(length = 100)
     private String zohoDeskTicketId;  // Ticket ID if created
 
+    // Denormalized counters, maintained by ConversationRepository on every append
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int messageCount = 0;
+
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int userMessageCount = 0;
+
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int agentMessageCount = 0;
+
+    // Null on rows that predate the counters, until MessageCounterBackfill recomputes them
+    @Column
+    private Boolean countersBackfilled = true;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -76,12 +92,18 @@ public class Conversation implements Serializable {
     public void addMessage(Message message) {
         messages.add(message);
         message.setConversation(this);
+        countMessage(message);
         this.lastMessageTime = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
     }
 
-    // Helper method to get message count
-    public int getMessageCount() {
-        return messages != null ? messages.size() : 0;
+    // Helper method to keep the in-memory counters in step with the database
+    public void countMessage(Message message) {
+        messageCount++;
+        if (message.isFromAgent()) {
+            agentMessageCount++;
+        } else {
+            userMessageCount++;
+        }
     }
 }
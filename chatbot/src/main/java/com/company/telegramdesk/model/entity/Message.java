@@ -11,6 +11,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "messages", indexes = {
         @Index(name = "idx_conversation_id", columnList = "conversation_id"),
+        @Index(name = "idx_conversation_id_id", columnList = "conversation_id, id"),
         @Index(name = "idx_telegram_message_id", columnList = "telegramMessageId"),
         @Index(name = "idx_timestamp", columnList = "timestamp")
 })
@@ -1,12 +1,18 @@
 package com.company.telegramdesk.repository;
 
 import com.company.telegramdesk.model.entity.Conversation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +24,11 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
      */
     Optional<Conversation> findByChatId(String chatId);
 
+    /**
+     * Find conversations for a batch of Telegram chat IDs
+     */
+    List<Conversation> findByChatIdIn(Collection<String> chatIds);
+
     /**
      * Find conversations not yet synced to Zoho Desk
      */
@@ -29,6 +40,20 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
      */
     List<Conversation> findByLastMessageTimeBefore(LocalDateTime time);
 
+    /**
+     * Same as findByLastMessageTimeBefore, restricted to one shard (id modulo shardCount)
+     * so scheduled jobs can split the work across nodes. The rows are locked (FOR UPDATE)
+     * until the transaction ends: a conversation that gets a message concurrently is
+     * re-checked against the cutoff, and new messages wait for the lock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Conversation c WHERE c.lastMessageTime < :time AND MOD(c.id, :shardCount) = :shard")
+    List<Conversation> findByLastMessageTimeBeforeInShard(
+            @Param("time") LocalDateTime time,
+            @Param("shardCount") int shardCount,
+            @Param("shard") int shard
+    );
+
     /**
      * Find conversation by Zoho Desk ticket ID
      */
@@ -50,12 +75,50 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
     @Query("SELECT c FROM Conversation c WHERE c.lastMessageTime >= :since ORDER BY c.lastMessageTime DESC")
     List<Conversation> findRecentConversations(@Param("since") LocalDateTime since);
 
+    /**
+     * Find recent conversations page by page (used for cache warm-up)
+     */
+    @Query("SELECT c FROM Conversation c WHERE c.lastMessageTime >= :since ORDER BY c.lastMessageTime DESC")
+    Slice<Conversation> findRecentConversations(@Param("since") LocalDateTime since, Pageable pageable);
+
+    /**
+     * Record a new user message without loading or merging the conversation
+     */
+    @Modifying
+    @Query("UPDATE Conversation c SET c.lastMessageTime = :time, c.updatedAt = :time, c.syncedToZoho = false, " +
+            "c.messageCount = c.messageCount + 1, c.userMessageCount = c.userMessageCount + 1 " +
+            "WHERE c.id = :id")
+    int markNewMessage(@Param("id") Long id, @Param("time") LocalDateTime time);
+
+    /**
+     * Record an agent reply; the conversation stays in its current sync state
+     */
+    @Modifying
+    @Query("UPDATE Conversation c SET c.lastMessageTime = :time, c.updatedAt = :time, " +
+            "c.messageCount = c.messageCount + 1, c.agentMessageCount = c.agentMessageCount + 1 " +
+            "WHERE c.id = :id")
+    int markAgentMessage(@Param("id") Long id, @Param("time") LocalDateTime time);
+
     /**
      * Find conversations with messages (excluding empty conversations)
      */
-    @Query("SELECT c FROM Conversation c WHERE SIZE(c.messages) > 0")
+    @Query("SELECT c FROM Conversation c WHERE c.messageCount > 0")
     List<Conversation> findConversationsWithMessages();
 
+    /**
+     * One-off backfill of the message counters for rows that predate them.
+     * Recomputes from the messages whatever the current counts are, so increments
+     * made before the backfill ran are not double counted.
+     */
+    @Modifying
+    @Query("UPDATE Conversation c SET " +
+            "c.messageCount = (SELECT COUNT(m) FROM Message m WHERE m.conversation = c), " +
+            "c.userMessageCount = (SELECT COUNT(m) FROM Message m WHERE m.conversation = c AND m.sender = 'user'), " +
+            "c.agentMessageCount = (SELECT COUNT(m) FROM Message m WHERE m.conversation = c AND m.sender = 'agent'), " +
+            "c.countersBackfilled = true " +
+            "WHERE c.countersBackfilled IS NULL")
+    int backfillMessageCounters();
+
     /**
      * Find conversations by username
      */
@@ -1,12 +1,14 @@
 package com.company.telegramdesk.repository;
 
 import com.company.telegramdesk.model.entity.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +20,29 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
      */
     List<Message> findByConversationIdOrderByTimestampAsc(Long conversationId);
 
+    /**
+     * Latest messages of a conversation, newest first (keyset by id)
+     */
+    @Query("SELECT m FROM Message m WHERE m.conversation.id = :conversationId ORDER BY m.id DESC")
+    List<Message> findLatestByConversationId(@Param("conversationId") Long conversationId, Pageable pageable);
+
+    /**
+     * Messages older than the given message id, newest first (keyset pagination)
+     */
+    @Query("SELECT m FROM Message m WHERE m.conversation.id = :conversationId AND m.id < :beforeId " +
+            "ORDER BY m.id DESC")
+    List<Message> findByConversationIdBefore(
+            @Param("conversationId") Long conversationId,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable
+    );
+
+    /**
+     * All messages of several conversations (used for archiving)
+     */
+    @Query("SELECT m FROM Message m WHERE m.conversation.id IN :conversationIds ORDER BY m.conversation.id, m.id")
+    List<Message> findByConversationIdIn(@Param("conversationIds") Collection<Long> conversationIds);
+
     /**
      * Find messages by sender type (user or agent)
      */
@@ -29,14 +54,26 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     Optional<Message> findByTelegramMessageId(String telegramMessageId);
 
     /**
-     * Count messages in a conversation
+     * Check whether a Telegram message of a chat was already stored (Telegram ids are per chat)
+     */
+    @Query("SELECT COUNT(m) > 0 FROM Message m WHERE m.conversation.chatId = :chatId " +
+            "AND m.telegramMessageId = :telegramMessageId")
+    boolean existsByChatIdAndTelegramMessageId(@Param("chatId") String chatId,
+                                               @Param("telegramMessageId") String telegramMessageId);
+
+    /**
+     * Count messages in a conversation (reads the conversation's counter)
      */
-    long countByConversationId(Long conversationId);
+    @Query("SELECT COALESCE(SUM(c.messageCount), 0) FROM Conversation c WHERE c.id = :conversationId")
+    long countByConversationId(@Param("conversationId") Long conversationId);
 
     /**
-     * Count messages by sender type in a conversation
+     * Count messages by sender type in a conversation (reads the conversation's counters)
      */
-    long countByConversationIdAndSender(Long conversationId, String sender);
+    @Query("SELECT COALESCE(SUM(CASE WHEN :sender = 'agent' THEN c.agentMessageCount " +
+            "WHEN :sender = 'user' THEN c.userMessageCount ELSE 0 END), 0) " +
+            "FROM Conversation c WHERE c.id = :conversationId")
+    long countByConversationIdAndSender(@Param("conversationId") Long conversationId, @Param("sender") String sender);
 
     /**
      * Find messages within a time range
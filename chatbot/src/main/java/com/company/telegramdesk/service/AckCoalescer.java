@@ -0,0 +1,178 @@
+package com.company.telegramdesk.service;
+
+import com.company.telegramdesk.logging.LogSampler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends one "message received" acknowledgement per burst of messages in a chat.
+ * The first message opens a window; messages arriving inside it are absorbed.
+ * In leading mode the first message is acked right away, in trailing mode a
+ * single summary ack goes out when the window closes. Windows are timeouts on
+ * one hashed wheel timer, so 100k active chats cost 100k small map entries,
+ * not threads. Acks are sent on their own executor; when it is saturated
+ * the ack is dropped rather than sent on the timer or request thread.
+ */
+@Component
+@Slf4j
+public class AckCoalescer {
+
+    public enum Mode { LEADING, TRAILING }
+
+    private final TelegramService telegramService;
+    private final Executor sendExecutor;
+    private final LogSampler logSampler;
+    private final boolean enabled;
+    private final Mode mode;
+    private final long windowMs;
+    private final HashedWheelTimer timer;
+    private final Map<String, Burst> bursts = new ConcurrentHashMap<>();
+
+    private final Counter sent;
+    private final Counter absorbed;
+    private final Counter dropped;
+
+    public AckCoalescer(TelegramService telegramService,
+                        @Qualifier("telegramAckExecutor") Executor sendExecutor,
+                        LogSampler logSampler,
+                        MeterRegistry meterRegistry,
+                        @Value("${telegram.ack.coalescing.enabled:true}") boolean enabled,
+                        @Value("${telegram.ack.coalescing.mode:leading}") String mode,
+                        @Value("${telegram.ack.coalescing.window-ms:3000}") long windowMs,
+                        @Value("${telegram.ack.coalescing.tick-ms:50}") long tickMs) {
+        this.telegramService = telegramService;
+        this.sendExecutor = sendExecutor;
+        this.logSampler = logSampler;
+        this.enabled = enabled;
+        this.mode = Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        this.windowMs = windowMs;
+        this.timer = new HashedWheelTimer(new CustomizableThreadFactory("ack-timer-"), tickMs, TimeUnit.MILLISECONDS);
+
+        this.sent = Counter.builder("telegram.acks").tag("result", "sent").register(meterRegistry);
+        this.absorbed = Counter.builder("telegram.acks").tag("result", "absorbed").register(meterRegistry);
+        this.dropped = Counter.builder("telegram.acks").tag("result", "dropped").register(meterRegistry);
+    }
+
+    /**
+     * Acknowledge a user message, or fold it into the chat's open burst
+     */
+    public void acknowledge(String chatId, Long conversationId, String text) {
+        if (!enabled) {
+            send(chatId, receivedAck(text, conversationId));
+            return;
+        }
+
+        boolean[] opened = {false};
+        bursts.compute(chatId, (key, burst) -> {
+            if (burst == null) {
+                opened[0] = true;
+                timer.newTimeout(t -> close(chatId), windowMs, TimeUnit.MILLISECONDS);
+                return new Burst(conversationId, text);
+            }
+            burst.count++;
+            burst.lastText = text;
+            return burst;
+        });
+
+        if (opened[0] && mode == Mode.LEADING) {
+            send(chatId, receivedAck(text, conversationId));
+        } else if (!opened[0]) {
+            absorbed.increment();
+        }
+    }
+
+    /**
+     * Window elapsed: forget the burst and, in trailing mode, send its ack
+     */
+    private void close(String chatId) {
+        Burst burst = bursts.remove(chatId);
+        if (burst == null || mode == Mode.LEADING) {
+            return;
+        }
+        if (burst.count == 1) {
+            send(chatId, receivedAck(burst.lastText, burst.conversationId));
+        } else {
+            send(chatId, summaryAck(burst.count, burst.conversationId));
+            log.debug("Coalesced {} acks for chat {}", burst.count, chatId);
+        }
+    }
+
+    private void send(String chatId, String ack) {
+        try {
+            sendExecutor.execute(() -> {
+                try {
+                    telegramService.sendMessage(chatId, ack);
+                } catch (Exception e) {
+                    log.error("Failed to send acknowledgment to chat {}: {}", chatId, e.getMessage());
+                }
+            });
+            sent.increment();
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+            long suppressed = logSampler.sample("ack.dropped");
+            if (suppressed >= 0) {
+                log.warn("Ack executor saturated, dropped acknowledgment to chat {} ({} similar suppressed)",
+                        chatId, suppressed);
+            }
+        }
+    }
+
+    private static String receivedAck(String text, Long conversationId) {
+        return String.format(
+                "✅ Message received!\n\n" +
+                        "Your message: \"%s\"\n\n" +
+                        "Our support team will review your message shortly. " +
+                        "Conversation ID: %d",
+                text, conversationId
+        );
+    }
+
+    private static String summaryAck(int count, Long conversationId) {
+        return String.format(
+                "✅ %d messages received!\n\n" +
+                        "Our support team will review your messages shortly. " +
+                        "Conversation ID: %d",
+                count, conversationId
+        );
+    }
+
+    /**
+     * Close open windows on shutdown so trailing acks are not lost
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Timeout pending : timer.stop()) {
+            try {
+                pending.task().run(pending);
+            } catch (Exception e) {
+                log.warn("Failed to flush acknowledgment on shutdown: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static final class Burst {
+        final Long conversationId;
+        String lastText;
+        int count = 1;
+
+        Burst(Long conversationId, String text) {
+            this.conversationId = conversationId;
+            this.lastText = text;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.company.telegramdesk.service;
+
+import com.company.telegramdesk.model.dto.zoho.ZohoThread;
+import com.company.telegramdesk.model.dto.zoho.ZohoWebhookEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes agent replies from Zoho Desk back to the Telegram chat.
+ * The reply is persisted synchronously and sent to Telegram on a separate
+ * executor; latency from the Zoho event to the Telegram send is recorded.
+ */
+@Service
+@Slf4j
+public class AgentReplyService {
+
+    private static final String THREAD_ADD_EVENT = "Ticket_Thread_Add";
+    private static final String THREAD_SEEN_PREFIX = "zoho:thread:";
+    private static final Duration THREAD_SEEN_TTL = Duration.ofHours(24);
+
+    private final ConversationService conversationService;
+    private final TicketChatIndex ticketChatIndex;
+    private final TelegramService telegramService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Executor telegramSendExecutor;
+
+    private final Timer endToEndLatency;
+    private final Timer internalLatency;
+    private final Counter deliveryFailures;
+
+    public AgentReplyService(ConversationService conversationService,
+                             TicketChatIndex ticketChatIndex,
+                             TelegramService telegramService,
+                             StringRedisTemplate stringRedisTemplate,
+                             @Qualifier("telegramSendExecutor") Executor telegramSendExecutor,
+                             MeterRegistry meterRegistry) {
+        this.conversationService = conversationService;
+        this.ticketChatIndex = ticketChatIndex;
+        this.telegramService = telegramService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.telegramSendExecutor = telegramSendExecutor;
+
+        this.endToEndLatency = Timer.builder("zoho.reply.latency")
+                .description("Zoho event time to Telegram send completed")
+                .tag("stage", "end_to_end")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.internalLatency = Timer.builder("zoho.reply.latency")
+                .description("Webhook received to Telegram send completed")
+                .tag("stage", "internal")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.deliveryFailures = Counter.builder("zoho.reply.failures")
+                .description("Agent replies that could not be sent to Telegram")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Handle one Zoho Desk webhook event. Returns true if a reply was accepted for delivery.
+     */
+    public boolean handle(ZohoWebhookEvent event) {
+        long receivedAt = System.currentTimeMillis();
+        ZohoThread thread = event.getPayload();
+
+        if (!THREAD_ADD_EVENT.equals(event.getEventType()) || thread == null
+                || !"out".equalsIgnoreCase(thread.getDirection()) || thread.getTicketId() == null) {
+            log.debug("Skipping Zoho event {} (not an outgoing agent reply)", event.getEventType());
+            return false;
+        }
+
+        if (!isFirstDelivery(thread.getId())) {
+            log.debug("Skipping duplicate Zoho thread {}", thread.getId());
+            return false;
+        }
+
+        // Release the claim unless the reply was stored, so Zoho's retry is not taken for a duplicate
+        boolean accepted = false;
+        try {
+            accepted = recordAndDeliver(event, thread, receivedAt);
+            return accepted;
+        } finally {
+            if (!accepted) {
+                forgetDelivery(thread.getId());
+            }
+        }
+    }
+
+    private boolean recordAndDeliver(ZohoWebhookEvent event, ZohoThread thread, long receivedAt) {
+        Optional<String> chatId = ticketChatIndex.findChatId(thread.getTicketId());
+        if (chatId.isEmpty()) {
+            log.warn("No conversation linked to Zoho ticket {}", thread.getTicketId());
+            return false;
+        }
+
+        String text = toPlainText(thread);
+        if (text.isBlank()) {
+            log.debug("Skipping empty agent reply on ticket {}", thread.getTicketId());
+            return false;
+        }
+
+        if (conversationService.recordAgentReply(chatId.get(), text).isEmpty()) {
+            log.warn("Conversation for chat {} (ticket {}) no longer exists", chatId.get(), thread.getTicketId());
+            return false;
+        }
+
+        telegramSendExecutor.execute(() -> deliver(chatId.get(), text, event.getEventTime(), receivedAt));
+        return true;
+    }
+
+    private void deliver(String chatId, String text, Long eventTime, long receivedAt) {
+        try {
+            telegramService.sendMessage(chatId, HtmlUtils.htmlEscape(text));
+
+            long sentAt = System.currentTimeMillis();
+            internalLatency.record(sentAt - receivedAt, TimeUnit.MILLISECONDS);
+            if (eventTime != null) {
+                endToEndLatency.record(Math.max(0, sentAt - eventTime), TimeUnit.MILLISECONDS);
+            }
+            log.info("Agent reply delivered to chat {} ({} ms after receipt)", chatId, sentAt - receivedAt);
+        } catch (Exception e) {
+            deliveryFailures.increment();
+            log.error("Failed to deliver agent reply to chat {}", chatId, e);
+        }
+    }
+
+    /**
+     * Zoho retries webhooks it considers failed; only handle each thread once
+     */
+    private boolean isFirstDelivery(String threadId) {
+        if (threadId == null) {
+            return true;
+        }
+        try {
+            Boolean first = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(THREAD_SEEN_PREFIX + threadId, "1", THREAD_SEEN_TTL);
+            return !Boolean.FALSE.equals(first);
+        } catch (Exception e) {
+            log.warn("Error checking Zoho thread {} for duplicates: {}", threadId, e.getMessage());
+            return true;
+        }
+    }
+
+    private void forgetDelivery(String threadId) {
+        if (threadId == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.delete(THREAD_SEEN_PREFIX + threadId);
+        } catch (Exception e) {
+            log.warn("Error releasing Zoho thread {} for retry: {}", threadId, e.getMessage());
+        }
+    }
+
+    private String toPlainText(ZohoThread thread) {
+        String html = thread.getContent() != null ? thread.getContent() : thread.getSummary();
+        if (html == null) {
+            return "";
+        }
+        String text = html
+                .replaceAll("(?i)<br\\s*/?>", "\n")
+                .replaceAll("(?i)</(p|div)>", "\n")
+                .replaceAll("<[^>]+>", "");
+        return HtmlUtils.htmlUnescape(text).strip();
+    }
+}
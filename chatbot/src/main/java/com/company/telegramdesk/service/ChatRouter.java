@@ -0,0 +1,77 @@
+package com.company.telegramdesk.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring over chat ids, built from the live nodes in
+ * ClusterNodeRegistry. Each node owns virtual-nodes points on the ring,
+ * so a join or leave moves only about 1/N of the chats, and the rest keep
+ * their owner (and its warm cache and ack timers).
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatRouter {
+
+    private final ClusterNodeRegistry nodeRegistry;
+
+    @Value("${cluster.routing.virtual-nodes:128}")
+    private int virtualNodes;
+
+    private volatile Ring ring = new Ring(List.of(), new TreeMap<>());
+
+    /**
+     * Node that owns the chat
+     */
+    public String ownerOf(String chatId) {
+        TreeMap<Long, String> points = currentRing().points();
+        Map.Entry<Long, String> owner = points.ceilingEntry(hash(chatId));
+        return owner != null ? owner.getValue() : points.firstEntry().getValue();
+    }
+
+    private Ring currentRing() {
+        List<String> nodes = nodeRegistry.getLiveNodes();
+        Ring current = ring;
+        if (current.nodes().equals(nodes)) {
+            return current;
+        }
+
+        TreeMap<Long, String> points = new TreeMap<>();
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(node + "#" + i), node);
+            }
+        }
+        Ring rebuilt = new Ring(List.copyOf(nodes), points);
+        ring = rebuilt;
+        log.info("Hash ring rebuilt for {} nodes ({} points)", nodes.size(), points.size());
+        return rebuilt;
+    }
+
+    private static long hash(String key) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (digest[i] & 0xff);
+        }
+        return hash;
+    }
+
+    private record Ring(List<String> nodes, TreeMap<Long, String> points) {
+    }
+}
@@ -0,0 +1,159 @@
+package com.company.telegramdesk.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps track of the live application nodes through Redis heartbeats.
+ * Each node refreshes its score (last heartbeat time) in a sorted set,
+ * and entries older than the heartbeat TTL are treated as dead.
+ * Nodes also advertise the base URL other nodes can reach them on.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ClusterNodeRegistry {
+
+    private static final String NODES_KEY = "cluster:nodes";
+    private static final String URLS_KEY = "cluster:node-urls";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${cluster.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${cluster.advertised-url:}")
+    private String configuredUrl;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Value("${cluster.heartbeat.ttl-ms:30000}")
+    private long heartbeatTtlMs;
+
+    @Getter
+    private String nodeId;
+
+    @Getter
+    private String advertisedUrl;
+
+    private volatile List<String> liveNodes = List.of();
+    private volatile Map<String, String> nodeUrls = Map.of();
+
+    @PostConstruct
+    void init() {
+        nodeId = configuredNodeId.isBlank() ? generateNodeId() : configuredNodeId;
+        advertisedUrl = configuredUrl.isBlank() ? defaultUrl() : configuredUrl;
+        log.info("Cluster node id: {} ({})", nodeId, advertisedUrl);
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.heartbeat.interval-ms:10000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        try {
+            ZSetOperations<String, String> ops = stringRedisTemplate.opsForZSet();
+            ops.add(NODES_KEY, nodeId, now);
+            ops.removeRangeByScore(NODES_KEY, 0, now - heartbeatTtlMs);
+
+            Set<String> members = ops.rangeByScore(NODES_KEY, now - heartbeatTtlMs, Double.MAX_VALUE);
+            List<String> nodes = members != null ? new ArrayList<>(members) : new ArrayList<>();
+            Collections.sort(nodes);
+
+            if (!nodes.equals(liveNodes)) {
+                log.info("Cluster membership changed: {}", nodes);
+            }
+            liveNodes = List.copyOf(nodes);
+            refreshNodeUrls(nodes);
+        } catch (Exception e) {
+            log.warn("Error sending cluster heartbeat: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Live nodes sorted by id. Falls back to this node alone when Redis
+     * has not been reachable yet.
+     */
+    public List<String> getLiveNodes() {
+        List<String> nodes = liveNodes;
+        return nodes.isEmpty() ? List.of(nodeId) : nodes;
+    }
+
+    public boolean isLive(String node) {
+        return getLiveNodes().contains(node);
+    }
+
+    /**
+     * Base URL of a live node, as advertised in its heartbeat
+     */
+    public Optional<String> getNodeUrl(String node) {
+        if (node.equals(nodeId)) {
+            return Optional.of(advertisedUrl);
+        }
+        return Optional.ofNullable(nodeUrls.get(node));
+    }
+
+    private void refreshNodeUrls(List<String> nodes) {
+        HashOperations<String, String, String> ops = stringRedisTemplate.opsForHash();
+        ops.put(URLS_KEY, nodeId, advertisedUrl);
+
+        Map<String, String> urls = new HashMap<>();
+        for (Map.Entry<String, String> entry : ops.entries(URLS_KEY).entrySet()) {
+            if (nodes.contains(entry.getKey())) {
+                urls.put(entry.getKey(), entry.getValue());
+            } else {
+                ops.delete(URLS_KEY, entry.getKey());  // Node missed its heartbeats
+            }
+        }
+        nodeUrls = Map.copyOf(urls);
+    }
+
+    @PreDestroy
+    void leave() {
+        try {
+            stringRedisTemplate.opsForZSet().remove(NODES_KEY, nodeId);
+            stringRedisTemplate.opsForHash().delete(URLS_KEY, nodeId);
+            log.info("Node {} left the cluster", nodeId);
+        } catch (Exception e) {
+            log.warn("Error removing node {} from cluster: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private String defaultUrl() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostAddress();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        return "http://" + host + ":" + serverPort;
+    }
+
+    private String generateNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,255 @@
+package com.company.telegramdesk.service;
+
+import com.company.telegramdesk.model.dto.ArchivedConversation;
+import com.company.telegramdesk.model.dto.MessageSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only archive of conversations removed from Postgres.
+ * Each archival run writes one segment file: conversations sorted by chat id,
+ * grouped into gzip-compressed blocks. A small sparse index next to it holds
+ * one entry per block (chat id range, time range, offset, length), so a lookup
+ * only decompresses the blocks that can contain the chat.
+ * The directory must be shared by all nodes (see docker-compose): lookups pick
+ * up segments other nodes wrote since the last scan.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ConversationArchive {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${conversation.archive.dir:data/archive}")
+    private String archiveDir;
+
+    @Value("${conversation.archive.block-size:64}")
+    private int blockSize;
+
+    private final List<SegmentIndex> segments = new CopyOnWriteArrayList<>();
+
+    public record BlockIndex(String firstChatId, String lastChatId,
+                             LocalDateTime minTime, LocalDateTime maxTime,
+                             long offset, int length, int count) {
+    }
+
+    public record SegmentIndex(String segmentFile, LocalDateTime createdAt, List<BlockIndex> blocks) {
+    }
+
+    @PostConstruct
+    void loadIndexes() throws IOException {
+        Path dir = Paths.get(archiveDir);
+        Files.createDirectories(dir);
+        scanIndexes();
+        log.info("Conversation archive at {}: {} segments", dir.toAbsolutePath(), segments.size());
+    }
+
+    /**
+     * Load indexes not seen yet, including those written by other nodes
+     */
+    private synchronized void scanIndexes() throws IOException {
+        Set<String> known = segments.stream().map(SegmentIndex::segmentFile).collect(Collectors.toSet());
+        try (Stream<Path> files = Files.list(Paths.get(archiveDir))) {
+            for (Path file : files.filter(f -> f.toString().endsWith(INDEX_SUFFIX)).sorted().toList()) {
+                String segmentFile = file.getFileName().toString().replace(INDEX_SUFFIX, SEGMENT_SUFFIX);
+                if (known.contains(segmentFile)) {
+                    continue;
+                }
+                try {
+                    addSegment(objectMapper.readValue(file.toFile(), SegmentIndex.class));
+                } catch (IOException e) {
+                    log.error("Skipping unreadable archive index {}: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the conversations to a new segment. When this returns, segment and index
+     * are on disk (fsync'd); on any error nothing is indexed and the caller must not
+     * delete the rows.
+     */
+    public void writeSegment(List<ArchivedConversation> conversations) throws IOException {
+        if (conversations.isEmpty()) {
+            return;
+        }
+
+        List<ArchivedConversation> sorted = conversations.stream()
+                .sorted(Comparator.comparing(ArchivedConversation::getChatId))
+                .toList();
+
+        String name = "segment-" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        Path segmentPath = Paths.get(archiveDir, name + SEGMENT_SUFFIX);
+        List<BlockIndex> blocks = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (int start = 0; start < sorted.size(); start += blockSize) {
+                List<ArchivedConversation> block = sorted.subList(start, Math.min(start + blockSize, sorted.size()));
+                byte[] compressed = compress(block);
+                ByteBuffer buffer = ByteBuffer.wrap(compressed);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+
+                blocks.add(new BlockIndex(
+                        block.get(0).getChatId(),
+                        block.get(block.size() - 1).getChatId(),
+                        block.stream().map(this::firstTime).min(Comparator.naturalOrder()).orElse(null),
+                        block.stream().map(ArchivedConversation::getLastMessageTime).max(Comparator.naturalOrder()).orElse(null),
+                        offset, compressed.length, block.size()));
+                offset += compressed.length;
+            }
+            channel.force(true);
+        }
+
+        // The index is what makes a segment visible; write it atomically after the data
+        SegmentIndex index = new SegmentIndex(segmentPath.getFileName().toString(), LocalDateTime.now(), blocks);
+        Path tmpIndex = Paths.get(archiveDir, name + INDEX_SUFFIX + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmpIndex, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.SYNC)) {
+            objectMapper.writeValue(out, index);
+        }
+        Files.move(tmpIndex, Paths.get(archiveDir, name + INDEX_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+
+        addSegment(index);
+        log.info("Archived {} conversations to {} ({} blocks)", sorted.size(), segmentPath.getFileName(), blocks.size());
+    }
+
+    private synchronized void addSegment(SegmentIndex index) {
+        if (segments.stream().noneMatch(s -> s.segmentFile().equals(index.segmentFile()))) {
+            segments.add(index);
+        }
+    }
+
+    /**
+     * Archived conversations of a chat, with messages limited to [from, to] when given.
+     * A conversation archived twice (the node died before deleting its rows) is
+     * returned once, from the newest segment.
+     */
+    public List<ArchivedConversation> find(String chatId, LocalDateTime from, LocalDateTime to) throws IOException {
+        scanIndexes();
+        Map<Long, ArchivedConversation> result = new LinkedHashMap<>();
+
+        // Segment names start with their creation time, so later copies overwrite earlier ones
+        List<SegmentIndex> ordered = segments.stream()
+                .sorted(Comparator.comparing(SegmentIndex::segmentFile))
+                .toList();
+        for (SegmentIndex segment : ordered) {
+            for (BlockIndex block : candidateBlocks(segment, chatId)) {
+                if ((from != null && block.maxTime() != null && block.maxTime().isBefore(from))
+                        || (to != null && block.minTime() != null && block.minTime().isAfter(to))) {
+                    continue;
+                }
+                for (ArchivedConversation conversation : readBlock(segment, block)) {
+                    if (chatId.equals(conversation.getChatId())) {
+                        conversation.setMessages(conversation.getMessages().stream()
+                                .filter(m -> from == null || !m.getTimestamp().isBefore(from))
+                                .filter(m -> to == null || !m.getTimestamp().isAfter(to))
+                                .toList());
+                        result.put(conversation.getConversationId(), conversation);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    /**
+     * Blocks are sorted by chat id, so binary search for the first block whose
+     * range can contain the chat, then take blocks while they still can
+     */
+    private List<BlockIndex> candidateBlocks(SegmentIndex segment, String chatId) {
+        List<BlockIndex> blocks = segment.blocks();
+        int low = 0;
+        int high = blocks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blocks.get(mid).lastChatId().compareTo(chatId) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        List<BlockIndex> candidates = new ArrayList<>();
+        for (int i = low; i < blocks.size() && blocks.get(i).firstChatId().compareTo(chatId) <= 0; i++) {
+            candidates.add(blocks.get(i));
+        }
+        return candidates;
+    }
+
+    private List<ArchivedConversation> readBlock(SegmentIndex segment, BlockIndex block) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(block.length());
+        try (FileChannel channel = FileChannel.open(Paths.get(archiveDir, segment.segmentFile()), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, block.offset() + buffer.position()) < 0) {
+                    throw new IOException("Truncated archive block in " + segment.segmentFile());
+                }
+            }
+        }
+
+        List<ArchivedConversation> conversations = new ArrayList<>(block.count());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(buffer.array())), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                conversations.add(objectMapper.readValue(line, ArchivedConversation.class));
+            }
+        }
+        return conversations;
+    }
+
+    private byte[] compress(List<ArchivedConversation> block) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (ArchivedConversation conversation : block) {
+                gzip.write(objectMapper.writeValueAsBytes(conversation));
+                gzip.write('\n');
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private LocalDateTime firstTime(ArchivedConversation conversation) {
+        return conversation.getMessages().stream()
+                .map(MessageSnapshot::getTimestamp)
+                .min(Comparator.naturalOrder())
+                .orElse(conversation.getCreatedAt());
+    }
+}
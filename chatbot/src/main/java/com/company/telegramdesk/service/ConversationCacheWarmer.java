@@ -0,0 +1,81 @@
+package com.company.telegramdesk.service;
+
+import com.company.telegramdesk.model.entity.Conversation;
+import com.company.telegramdesk.repository.ConversationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Loads recently active conversations into Redis when the node starts,
+ * so the first message of each active chat does not fall through to Postgres.
+ * The node reports ready on /admin/health only after warm-up has finished.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ConversationCacheWarmer {
+
+    private final ConversationRepository conversationRepository;
+    private final ConversationService conversationService;
+
+    @Value("${conversation.cache.warmup.enabled:true}")
+    private boolean warmupEnabled;
+
+    @Value("${conversation.cache.warmup.since-hours:24}")
+    private int sinceHours;
+
+    @Value("${conversation.cache.warmup.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${conversation.cache.warmup.max-conversations:20000}")
+    private int maxConversations;
+
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmupEnabled) {
+            log.info("Conversation cache warm-up is disabled");
+            ready = true;
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.now().minusHours(sinceHours);
+        int warmed = 0;
+
+        try {
+            Pageable page = PageRequest.of(0, chunkSize);
+            while (warmed < maxConversations) {
+                Slice<Conversation> chunk = conversationRepository.findRecentConversations(since, page);
+                conversationService.cacheConversations(chunk.getContent());
+                warmed += chunk.getNumberOfElements();
+
+                if (!chunk.hasNext()) {
+                    break;
+                }
+                page = chunk.nextPageable();
+            }
+            log.info("✅ Cache warm-up finished: {} conversations from the last {}h in {} ms",
+                    warmed, sinceHours, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // A cold cache is slower, not broken: report ready anyway
+            log.error("Cache warm-up failed after {} conversations: {}", warmed, e.getMessage());
+        } finally {
+            ready = true;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+}
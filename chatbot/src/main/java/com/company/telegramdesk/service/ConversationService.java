@@ -1,17 +1,31 @@
 package com.company.telegramdesk.service;
 
+import com.company.telegramdesk.logging.LogSampler;
+import com.company.telegramdesk.model.dto.MessageSnapshot;
 import com.company.telegramdesk.model.dto.telegram.TelegramUpdate;
 import com.company.telegramdesk.model.entity.Conversation;
 import com.company.telegramdesk.model.entity.Message;
 import com.company.telegramdesk.repository.ConversationRepository;
+import com.company.telegramdesk.repository.MessageRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
@@ -20,13 +34,37 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class ConversationService {
 
-    private final TelegramService telegramService;
     private final ConversationRepository conversationRepository;
+    private final MessageRepository messageRepository;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final ResilientCache resilientCache;
+    private final RecentMessageWindow recentMessageWindow;
+    private final TicketChatIndex ticketChatIndex;
+    private final LogSampler logSampler;
+    private final AckCoalescer ackCoalescer;
+    private final LiveMessageStream liveMessageStream;
+    private final TrafficAnalytics trafficAnalytics;
 
     private static final String CACHE_PREFIX = "conversation:";
     private static final long CACHE_TTL_HOURS = 1;
 
+    /**
+     * Process a redelivered update unless its message is already stored. The check and
+     * the insert share one read-write transaction, so both run on the primary and the
+     * check cannot miss a first insert that has not reached the replica yet.
+     */
+    @Transactional
+    public boolean processIncomingMessageIfNew(TelegramUpdate update) {
+        var telegramMsg = update.getMessage();
+        if (telegramMsg != null && telegramMsg.getChat() != null && telegramMsg.getMessageId() != null
+                && messageRepository.existsByChatIdAndTelegramMessageId(
+                        telegramMsg.getChat().getId().toString(), telegramMsg.getMessageId().toString())) {
+            return false;
+        }
+        processIncomingMessage(update);
+        return true;
+    }
+
     @Transactional
     public void processIncomingMessage(TelegramUpdate update) {
         if (update.getMessage() == null || update.getMessage().getText() == null) {
@@ -39,37 +77,97 @@ public class ConversationService {
         String text = telegramMsg.getText();
         String username = telegramMsg.getFrom().getUsername();
 
-        log.info("Processing message from user {} (chat {}): {}", username, chatId, text);
+        // Message text only at DEBUG; the INFO line is rate limited
+        log.debug("Processing message from user {} (chat {}): {}", username, chatId, text);
 
         // Get or create conversation
         Conversation conversation = getOrCreateConversation(chatId, telegramMsg);
+        boolean newConversation = conversation.getId() == null;
+        if (newConversation) {
+            conversation = conversationRepository.save(conversation);
+        }
+
+        Message message = appendMessage(conversation, "user", text,
+                telegramMsg.getMessageId().toString(), newConversation);
+        long suppressed = logSampler.sample("conversation.saved");
+        if (suppressed >= 0) {
+            log.info("Saved message {} from user {} to conversation {} with {} messages ({} similar suppressed)",
+                    message.getId(), username, conversation.getId(), conversation.getMessageCount(), suppressed);
+        }
 
-        // Add message to conversation
+        // Acknowledge and count once committed; bursts in the same chat share one ack
+        Long conversationId = conversation.getId();
+        Long userId = telegramMsg.getFrom().getId();
+        afterCommit(() -> {
+            ackCoalescer.acknowledge(chatId, conversationId, text);
+            trafficAnalytics.record(chatId, userId);
+        });
+    }
+
+    /**
+     * Record an agent reply (from Zoho Desk) in the chat's conversation
+     */
+    @Transactional
+    public Optional<Message> recordAgentReply(String chatId, String text) {
+        return getConversationByChatId(chatId)
+                .map(conversation -> appendMessage(conversation, "agent", text, null, false));
+    }
+
+    /**
+     * Persist a message on its own. The conversation may come from the cache and
+     * must not be merged back (that would replace its message collection).
+     */
+    private Message appendMessage(Conversation conversation, String sender, String text,
+                                  String telegramMessageId, boolean newConversation) {
+        LocalDateTime now = LocalDateTime.now();
         Message message = new Message();
         message.setText(text);
-        message.setSender("user");
-        message.setTelegramMessageId(telegramMsg.getMessageId().toString());
-        message.setTimestamp(LocalDateTime.now());
+        message.setSender(sender);
+        message.setTelegramMessageId(telegramMessageId);
+        message.setTimestamp(now);
+        message.setConversation(conversationRepository.getReferenceById(conversation.getId()));
+        messageRepository.save(message);
 
-        conversation.addMessage(message);
-        conversation.setSyncedToZoho(false);  // Mark for sync
+        // Counters are incremented in the same UPDATE, no collection load or COUNT query
+        if (message.isFromUser()) {
+            conversationRepository.markNewMessage(conversation.getId(), now);  // Also marks for sync
+            conversation.setSyncedToZoho(false);
+        } else {
+            conversationRepository.markAgentMessage(conversation.getId(), now);
+        }
+        conversation.countMessage(message);
+        conversation.setLastMessageTime(now);
+        conversation.setUpdatedAt(now);
 
-        // Save to database
-        Conversation saved = conversationRepository.save(conversation);
-        log.info("Saved conversation {} with {} messages", saved.getId(), saved.getMessageCount());
+        cacheConversation(conversation);
+        String chatId = conversation.getChatId();
+        MessageSnapshot snapshot = MessageSnapshot.of(message, conversation.getId());
+        appendToRecentWindow(chatId, snapshot, newConversation);
+        afterCommit(() -> liveMessageStream.publish(chatId, snapshot));
+        return message;
+    }
 
-        // Update cache
-        cacheConversation(saved);
+    /**
+     * Add the message to the recent window once the transaction has committed
+     */
+    private void appendToRecentWindow(String chatId, MessageSnapshot snapshot, boolean newConversation) {
+        afterCommit(() -> recentMessageWindow.append(chatId, snapshot, newConversation));
+    }
 
-        // Send acknowledgment response
-        String response = String.format(
-                "✅ Message received!\n\n" +
-                        "Your message: \"%s\"\n\n" +
-                        "Our support team will review your message shortly. " +
-                        "Conversation ID: %d",
-                text, saved.getId()
-        );
-        telegramService.sendMessage(chatId, response);
+    /**
+     * Run an action after the current transaction commits, or right away outside one
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     private Conversation getOrCreateConversation(String chatId, com.company.telegramdesk.model.dto.telegram.TelegramMessage telegramMsg) {
@@ -104,34 +202,57 @@ public class ConversationService {
     }
 
     private Conversation getFromCache(String chatId) {
-        String cacheKey = CACHE_PREFIX + chatId;
-        try {
-            Object cached = redisTemplate.opsForValue().get(cacheKey);
-            if (cached instanceof Conversation) {
-                return (Conversation) cached;
-            }
-        } catch (Exception e) {
-            log.warn("Error retrieving from cache for chat {}: {}", chatId, e.getMessage());
-        }
-        return null;
+        Object cached = resilientCache.execute("get " + chatId,
+                () -> redisTemplate.opsForValue().get(CACHE_PREFIX + chatId), null);
+        return cached instanceof Conversation conversation ? conversation : null;
     }
 
     private void cacheConversation(Conversation conversation) {
         String cacheKey = CACHE_PREFIX + conversation.getChatId();
-        try {
+        resilientCache.run("set " + conversation.getChatId(), () -> {
             redisTemplate.opsForValue().set(cacheKey, conversation, CACHE_TTL_HOURS, TimeUnit.HOURS);
             log.debug("Cached conversation for chat {}", conversation.getChatId());
-        } catch (Exception e) {
-            log.warn("Error caching conversation for chat {}: {}", conversation.getChatId(), e.getMessage());
+        });
+    }
+
+    /**
+     * Cache many conversations in one pipelined round trip
+     */
+    public void cacheConversations(Collection<Conversation> conversations) {
+        if (conversations.isEmpty()) {
+            return;
         }
+        resilientCache.run("pipelined set of " + conversations.size() + " conversations", () -> {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (Conversation conversation : conversations) {
+                        ops.opsForValue().set(CACHE_PREFIX + conversation.getChatId(), conversation,
+                                CACHE_TTL_HOURS, TimeUnit.HOURS);
+                    }
+                    return null;
+                }
+            });
+            log.debug("Cached {} conversations", conversations.size());
+        });
     }
 
     public void invalidateCache(String chatId) {
         String cacheKey = CACHE_PREFIX + chatId;
-        redisTemplate.delete(cacheKey);
+        resilientCache.run("delete " + chatId, () -> redisTemplate.delete(cacheKey));
         log.debug("Invalidated cache for chat {}", chatId);
     }
 
+    /**
+     * Drop everything cached for a chat (after its conversation was deleted)
+     */
+    public void evict(String chatId) {
+        invalidateCache(chatId);
+        recentMessageWindow.invalidate(chatId);
+    }
+
     public Optional<Conversation> getConversationByChatId(String chatId) {
         // Try cache first
         Conversation cached = getFromCache(chatId);
@@ -145,23 +266,139 @@ public class ConversationService {
         return conversation;
     }
 
+    /**
+     * Batch lookup: one Redis MGET for all chats, one database query for the misses
+     */
+    public Map<String, Conversation> getConversationsByChatIds(Collection<String> chatIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(chatIds));
+        Map<String, Conversation> result = new HashMap<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+
+        List<Object> cached = resilientCache.execute("multi-get of " + ids.size() + " chats",
+                () -> redisTemplate.opsForValue().multiGet(ids.stream().map(id -> CACHE_PREFIX + id).toList()),
+                null);
+        if (cached != null) {
+            for (int i = 0; i < ids.size(); i++) {
+                if (cached.get(i) instanceof Conversation conversation) {
+                    result.put(ids.get(i), conversation);
+                }
+            }
+        }
+
+        List<String> misses = ids.stream().filter(id -> !result.containsKey(id)).toList();
+        if (!misses.isEmpty()) {
+            List<Conversation> loaded = conversationRepository.findByChatIdIn(misses);
+            loaded.forEach(conversation -> result.put(conversation.getChatId(), conversation));
+            cacheConversations(loaded);
+        }
+
+        log.debug("Batch lookup of {} chats: {} from cache, {} from database",
+                ids.size(), ids.size() - misses.size(), misses.size());
+        return result;
+    }
+
+    /**
+     * Latest messages of a chat, newest first. Served from the recent window;
+     * Postgres is only read to (re)load the window or for limits beyond it.
+     * Read-write transaction on purpose: the window must be loaded from the primary,
+     * a lagging replica could miss a message that is never appended afterwards.
+     */
+    @Transactional
+    public List<MessageSnapshot> getRecentMessages(String chatId, int limit) {
+        if (limit <= recentMessageWindow.getWindowSize()) {
+            Optional<List<MessageSnapshot>> cached = recentMessageWindow.getRecent(chatId, limit);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        Optional<Conversation> conversation = getConversationByChatId(chatId);
+        if (conversation.isEmpty()) {
+            return List.of();
+        }
+
+        // Read the window version first: an append committed after it invalidates this load
+        String version = recentMessageWindow.currentVersion(chatId);
+        int fetch = Math.max(limit, recentMessageWindow.getWindowSize());
+        List<MessageSnapshot> latest = toSnapshots(
+                messageRepository.findLatestByConversationId(conversation.get().getId(), PageRequest.of(0, fetch)),
+                conversation.get().getId());
+        recentMessageWindow.load(chatId, latest, version);
+        return latest.subList(0, Math.min(limit, latest.size()));
+    }
+
+    /**
+     * Messages older than {@code beforeId}, newest first. Uses the recent window
+     * when it covers the page, otherwise a keyset query on Postgres.
+     */
+    public List<MessageSnapshot> getMessagesBefore(String chatId, Long beforeId, int limit) {
+        Optional<List<MessageSnapshot>> window = recentMessageWindow.getRecent(chatId, recentMessageWindow.getWindowSize());
+        if (window.isPresent()) {
+            List<MessageSnapshot> older = window.get().stream()
+                    .filter(m -> m.getId() != null && m.getId() < beforeId)
+                    .limit(limit)
+                    .toList();
+            if (older.size() == limit) {
+                return older;
+            }
+        }
+
+        Optional<Conversation> conversation = getConversationByChatId(chatId);
+        if (conversation.isEmpty()) {
+            return List.of();
+        }
+        Long conversationId = conversation.get().getId();
+        return toSnapshots(
+                messageRepository.findByConversationIdBefore(conversationId, beforeId, PageRequest.of(0, limit)),
+                conversationId);
+    }
+
+    private List<MessageSnapshot> toSnapshots(List<Message> messages, Long conversationId) {
+        return messages.stream().map(m -> MessageSnapshot.of(m, conversationId)).toList();
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Conversation> getConversationById(Long id) {
         return conversationRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Conversation> getUnsyncedConversations() {
         return conversationRepository.findBySyncedToZohoFalse();
     }
 
+    @Transactional(readOnly = true)
     public List<Conversation> getRecentConversations(int days) {
         LocalDateTime since = LocalDateTime.now().minusDays(days);
         return conversationRepository.findRecentConversations(since);
     }
 
+    @Transactional(readOnly = true)
     public long getUnsyncedCount() {
         return conversationRepository.countBySyncedToZohoFalse();
     }
 
+    /**
+     * Link a conversation to its Zoho Desk ticket so agent replies can be routed back
+     */
+    @Transactional
+    public Optional<Conversation> linkTicket(String chatId, String ticketId) {
+        return conversationRepository.findByChatId(chatId).map(conversation -> {
+            String previous = conversation.getZohoDeskTicketId();
+            if (previous != null && !previous.equals(ticketId)) {
+                ticketChatIndex.remove(previous);
+            }
+            conversation.setZohoDeskTicketId(ticketId);
+            Conversation saved = conversationRepository.save(conversation);
+            invalidateCache(chatId);
+            ticketChatIndex.put(ticketId, chatId);
+            log.info("Linked conversation {} to Zoho ticket {}", saved.getId(), ticketId);
+            return saved;
+        });
+    }
+
     @Transactional
     public void markAsSynced(Long conversationId) {
         conversationRepository.findById(conversationId).ifPresent(conversation -> {
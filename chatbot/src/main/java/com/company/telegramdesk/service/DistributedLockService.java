@@ -0,0 +1,138 @@
+package com.company.telegramdesk.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis lease locks for work that must run on a single node at a time.
+ * Held leases are renewed in the background; if a node dies its leases
+ * simply expire and another node can take the work over.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DistributedLockService {
+
+    private static final String LOCK_PREFIX = "lock:";
+    private static final String COMPLETED = "completed";
+
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 else return 0 end",
+            Long.class);
+
+    public enum LockState { FREE, HELD, COMPLETED }
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ClusterNodeRegistry nodeRegistry;
+
+    private final Map<String, HeldLease> heldLeases = new ConcurrentHashMap<>();
+
+    /**
+     * A lease this node holds; confirmedAt is when Redis last accepted it (taken before the call)
+     */
+    private record HeldLease(Duration lease, long confirmedAt) {
+    }
+
+    /**
+     * Try to acquire the named lease for this node
+     */
+    public boolean tryAcquire(String name, Duration lease) {
+        long now = System.currentTimeMillis();
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(LOCK_PREFIX + name, nodeRegistry.getNodeId(), lease);
+            if (Boolean.TRUE.equals(acquired)) {
+                heldLeases.put(name, new HeldLease(lease, now));
+                log.debug("Acquired lease {} for {}", name, lease);
+                return true;
+            }
+        } catch (Exception e) {
+            log.warn("Error acquiring lease {}: {}", name, e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Release the lease so any node can pick the work up again
+     */
+    public void release(String name) {
+        heldLeases.remove(name);
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_PREFIX + name), nodeRegistry.getNodeId());
+        } catch (Exception e) {
+            log.warn("Error releasing lease {}: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Mark the work behind the lease as done. The key is kept for {@code keepFor}
+     * so nodes firing the same schedule slightly later do not run it again.
+     */
+    public void complete(String name, Duration keepFor) {
+        heldLeases.remove(name);
+        try {
+            stringRedisTemplate.execute(COMPLETE_SCRIPT, List.of(LOCK_PREFIX + name),
+                    nodeRegistry.getNodeId(), COMPLETED, String.valueOf(keepFor.toMillis()));
+        } catch (Exception e) {
+            log.warn("Error completing lease {}: {}", name, e.getMessage());
+        }
+    }
+
+    public LockState getState(String name) {
+        String value = stringRedisTemplate.opsForValue().get(LOCK_PREFIX + name);
+        if (value == null) {
+            return LockState.FREE;
+        }
+        return COMPLETED.equals(value) ? LockState.COMPLETED : LockState.HELD;
+    }
+
+    /**
+     * Whether this node still holds the lease. False once renewal found it taken over,
+     * and also once renewals have failed (e.g. Redis unreachable) for a whole lease period,
+     * since by then it may have expired and been claimed elsewhere.
+     */
+    public boolean isHeld(String name) {
+        HeldLease held = heldLeases.get(name);
+        return held != null && System.currentTimeMillis() - held.confirmedAt() < held.lease().toMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.lock.renew-interval-ms:10000}")
+    public void renewHeldLeases() {
+        heldLeases.forEach((name, held) -> {
+            long now = System.currentTimeMillis();
+            try {
+                Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(LOCK_PREFIX + name),
+                        nodeRegistry.getNodeId(), String.valueOf(held.lease().toMillis()));
+                if (renewed == null || renewed == 0) {
+                    heldLeases.remove(name);
+                    log.warn("Lost lease {} (expired or taken over by another node)", name);
+                } else {
+                    heldLeases.replace(name, held, new HeldLease(held.lease(), now));
+                }
+            } catch (Exception e) {
+                log.warn("Error renewing lease {}: {}", name, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,391 @@
+package com.company.telegramdesk.service;
+
+import com.company.telegramdesk.model.dto.telegram.TelegramUpdate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional durable ingest stage (ingest.durable.enabled).
+ * The webhook appends the raw Telegram update to the Redis Stream
+ * stream:ingest before answering 200, and a consumer group shared by all
+ * nodes processes the entries. An entry is acknowledged (XACK) only after
+ * it has been persisted, so a node that dies mid-way leaves it pending;
+ * the reclaim job moves entries idle longer than min-idle-ms to a live
+ * consumer. Redelivered entries are checked against the messages table
+ * before processing again. Entries that keep failing go to stream:ingest:dead.
+ * Consumers talk to Redis directly rather than through the cache circuit
+ * breaker: their failures (or a missing group) must not open it for the cache.
+ */
+@Component
+@Slf4j
+public class DurableIngest {
+
+    private static final String STREAM_KEY = "stream:ingest";
+    private static final String DEAD_LETTER_KEY = "stream:ingest:dead";
+    private static final String GROUP = "ingest-workers";
+    private static final long ERROR_BACKOFF_MS = 1000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ResilientCache resilientCache;
+    private final ConversationService conversationService;
+    private final ClusterNodeRegistry nodeRegistry;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ingest.durable.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ingest.durable.max-length:1000000}")
+    private long maxLength;
+
+    @Value("${ingest.durable.consumers-per-node:2}")
+    private int consumersPerNode;
+
+    @Value("${ingest.durable.batch-size:50}")
+    private int batchSize;
+
+    @Value("${ingest.durable.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    @Value("${ingest.durable.min-idle-ms:30000}")
+    private long minIdleMs;
+
+    @Value("${ingest.durable.max-deliveries:5}")
+    private int maxDeliveries;
+
+    @Value("${ingest.durable.consumer-expiry-ms:3600000}")
+    private long consumerExpiryMs;
+
+    private final Counter appended;
+    private final Counter processed;
+    private final Counter duplicates;
+    private final Counter failed;
+    private final Counter deadLettered;
+    private final AtomicLong streamLength = new AtomicLong();
+
+    // Per consumer: age of the last processed entry, and entries it holds pending
+    private final Map<String, AtomicLong> consumerLagMs = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> consumerPending = new ConcurrentHashMap<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public DurableIngest(StringRedisTemplate stringRedisTemplate,
+                         ResilientCache resilientCache,
+                         ConversationService conversationService,
+                         ClusterNodeRegistry nodeRegistry,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.resilientCache = resilientCache;
+        this.conversationService = conversationService;
+        this.nodeRegistry = nodeRegistry;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+
+        this.appended = Counter.builder("ingest.entries").tag("result", "appended").register(meterRegistry);
+        this.processed = Counter.builder("ingest.entries").tag("result", "processed").register(meterRegistry);
+        this.duplicates = Counter.builder("ingest.entries").tag("result", "duplicate").register(meterRegistry);
+        this.failed = Counter.builder("ingest.entries").tag("result", "failed").register(meterRegistry);
+        this.deadLettered = Counter.builder("ingest.entries").tag("result", "dead").register(meterRegistry);
+        Gauge.builder("ingest.stream.length", streamLength, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Append an update to the ingest log. Returns false when the durable stage
+     * is disabled or Redis did not take the entry; the caller then processes it inline.
+     */
+    public boolean append(TelegramUpdate update) {
+        if (!enabled) {
+            return false;
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(update);
+        } catch (Exception e) {
+            log.error("Cannot serialize update {}: {}", update.getUpdateId(), e.getMessage());
+            return false;
+        }
+
+        boolean added = resilientCache.run("append update " + update.getUpdateId(), () ->
+                stringRedisTemplate.opsForStream().add(
+                        StreamRecords.newRecord().in(STREAM_KEY).ofMap(Map.of(
+                                "updateId", String.valueOf(update.getUpdateId()),
+                                "update", payload)),
+                        XAddOptions.maxlen(maxLength).approximateTrimming(true)));
+        if (added) {
+            appended.increment();
+        }
+        return added;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        createGroup();
+        running = true;
+        for (int i = 0; i < consumersPerNode; i++) {
+            String consumer = nodeRegistry.getNodeId() + "#" + i;
+            workers.add(Thread.ofPlatform().name("ingest-" + i).start(() -> consume(consumer)));
+        }
+        log.info("✅ Durable ingest started with {} consumers in group {}", consumersPerNode, GROUP);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        // No interrupt: let in-flight entries finish and get acknowledged
+        for (Thread worker : workers) {
+            try {
+                worker.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Create the group (and the stream, MKSTREAM) unless it exists. From 0-0, so entries
+     * appended before the group existed are still processed.
+     */
+    private void createGroup() {
+        try {
+            stringRedisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                    .xGroupCreate(STREAM_KEY.getBytes(StandardCharsets.UTF_8), GROUP, ReadOffset.from("0-0"), true));
+            log.info("Created consumer group {} on {}", GROUP, STREAM_KEY);
+        } catch (Exception e) {
+            if (hasMessage(e, "BUSYGROUP")) {
+                log.debug("Consumer group {} already exists", GROUP);
+            } else {
+                // Consumers retry when their reads fail with NOGROUP
+                log.error("❌ Cannot create consumer group {} on {}: {}", GROUP, STREAM_KEY, e.getMessage());
+            }
+        }
+    }
+
+    private static boolean hasMessage(Throwable e, String text) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void consume(String consumer) {
+        AtomicLong lag = consumerLag(consumer);
+        // Entries this consumer received before a restart come first, then new ones
+        String offset = "0";
+        while (running) {
+            try {
+                List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream().read(
+                        Consumer.from(GROUP, consumer),
+                        StreamReadOptions.empty().count(batchSize),
+                        StreamOffset.create(STREAM_KEY, ReadOffset.from(offset)));
+
+                boolean redelivered = !">".equals(offset);
+                offset = ">";  // Pending entries get one pass here; failures are left to the reclaim job
+                if (records == null || records.isEmpty()) {
+                    lag.set(0);
+                    if (!redelivered) {
+                        Thread.sleep(pollIntervalMs);
+                    }
+                    continue;
+                }
+                for (MapRecord<String, Object, Object> record : records) {
+                    handle(record, redelivered);
+                    lag.set(System.currentTimeMillis() - record.getId().getTimestamp());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (hasMessage(e, "NOGROUP")) {
+                    log.warn("Consumer group {} missing (Redis restarted or flushed?), recreating it", GROUP);
+                    createGroup();
+                } else {
+                    log.error("Ingest consumer {} failed: {}", consumer, e.getMessage());
+                }
+                try {
+                    Thread.sleep(ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(MapRecord<String, Object, Object> record, boolean redelivered) {
+        TelegramUpdate update;
+        try {
+            update = objectMapper.readValue(String.valueOf(record.getValue().get("update")), TelegramUpdate.class);
+        } catch (Exception e) {
+            log.error("❌ Unreadable ingest entry {}: {}", record.getId(), e.getMessage());
+            deadLetter(record);
+            return;
+        }
+
+        try {
+            if (!redelivered) {
+                conversationService.processIncomingMessage(update);
+                processed.increment();
+            } else if (conversationService.processIncomingMessageIfNew(update)) {
+                processed.increment();
+            } else {
+                duplicates.increment();
+                log.info("Skipping ingest entry {} (update {}), already stored", record.getId(), update.getUpdateId());
+            }
+            stringRedisTemplate.opsForStream().acknowledge(STREAM_KEY, GROUP, record.getId());
+        } catch (Exception e) {
+            // Stays pending; the reclaim job retries it on this or another node
+            failed.increment();
+            log.error("Failed to process ingest entry {} (update {}): {}",
+                    record.getId(), update.getUpdateId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Move entries whose consumer stopped acknowledging them (crashed node,
+     * failed processing) to this node, and give up on ones that keep failing
+     */
+    @Scheduled(fixedDelayString = "${ingest.durable.reclaim-interval-ms:15000}")
+    public void reclaim() {
+        if (!running) {
+            return;
+        }
+        try {
+            StreamOperations<String, Object, Object> ops = stringRedisTemplate.opsForStream();
+            PendingMessages pending = ops.pending(STREAM_KEY, GROUP, Range.unbounded(), batchSize);
+
+            List<RecordId> toClaim = new ArrayList<>();
+            for (PendingMessage entry : pending) {
+                if (entry.getElapsedTimeSinceLastDelivery().toMillis() < minIdleMs) {
+                    continue;
+                }
+                if (entry.getTotalDeliveryCount() >= maxDeliveries) {
+                    List<MapRecord<String, Object, Object>> records =
+                            ops.range(STREAM_KEY, Range.closed(entry.getIdAsString(), entry.getIdAsString()));
+                    if (records != null && !records.isEmpty()) {
+                        deadLetter(records.get(0));
+                    } else {
+                        ops.acknowledge(STREAM_KEY, GROUP, entry.getId());  // Trimmed away
+                    }
+                    continue;
+                }
+                toClaim.add(entry.getId());
+            }
+            if (toClaim.isEmpty()) {
+                return;
+            }
+
+            String consumer = nodeRegistry.getNodeId() + "#0";
+            List<MapRecord<String, Object, Object>> claimed = ops.claim(STREAM_KEY, GROUP, consumer,
+                    Duration.ofMillis(minIdleMs), toClaim.toArray(new RecordId[0]));
+            if (!claimed.isEmpty()) {
+                log.warn("Reclaimed {} stalled ingest entries", claimed.size());
+            }
+            for (MapRecord<String, Object, Object> record : claimed) {
+                handle(record, true);
+            }
+        } catch (Exception e) {
+            log.warn("Ingest reclaim failed: {}", e.getMessage());
+        }
+    }
+
+    private void deadLetter(MapRecord<String, Object, Object> record) {
+        StreamOperations<String, Object, Object> ops = stringRedisTemplate.opsForStream();
+        ops.add(StreamRecords.newRecord().in(DEAD_LETTER_KEY).ofMap(record.getValue()));
+        ops.acknowledge(STREAM_KEY, GROUP, record.getId());
+        deadLettered.increment();
+        log.error("❌ Ingest entry {} moved to {}", record.getId(), DEAD_LETTER_KEY);
+    }
+
+    /**
+     * Refresh stream length and per-consumer pending counts; drop consumers
+     * of nodes that are gone and hold nothing pending
+     */
+    @Scheduled(fixedDelayString = "${ingest.durable.metrics-interval-ms:5000}")
+    public void refreshMetrics() {
+        if (!running) {
+            return;
+        }
+        try {
+            StreamOperations<String, Object, Object> ops = stringRedisTemplate.opsForStream();
+            Long length = ops.size(STREAM_KEY);
+            streamLength.set(length != null ? length : 0);
+
+            StreamInfo.XInfoConsumers consumers = ops.consumers(STREAM_KEY, GROUP);
+            for (StreamInfo.XInfoConsumer info : consumers.stream().toList()) {
+                String name = info.consumerName();
+                String node = name.contains("#") ? name.substring(0, name.lastIndexOf('#')) : name;
+                if (node.equals(nodeRegistry.getNodeId())) {
+                    consumerPending(name).set(info.pendingCount());
+                } else if (info.pendingCount() == 0 && info.idleTimeMs() > consumerExpiryMs
+                        && !nodeRegistry.isLive(node)) {
+                    ops.deleteConsumer(STREAM_KEY, Consumer.from(GROUP, name));
+                    log.info("Removed idle ingest consumer {}", name);
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Ingest metrics refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private AtomicLong consumerLag(String consumer) {
+        return consumerLagMs.computeIfAbsent(consumer, name -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("ingest.consumer.lag", value, AtomicLong::get)
+                    .tag("consumer", name)
+                    .baseUnit("milliseconds")
+                    .description("Age of the last entry this consumer processed")
+                    .register(meterRegistry);
+            return value;
+        });
+    }
+
+    private AtomicLong consumerPending(String consumer) {
+        return consumerPending.computeIfAbsent(consumer, name -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("ingest.consumer.pending", value, AtomicLong::get)
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+            return value;
+        });
+    }
+}
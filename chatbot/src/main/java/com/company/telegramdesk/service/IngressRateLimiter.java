@@ -0,0 +1,261 @@
+package com.company.telegramdesk.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds excess Telegram updates before they reach the database or Redis.
+ * Each chat and each user has a token bucket in a striped in-memory LRU, so
+ * the hot path is one short synchronized block per bucket. Accepted counts
+ * are pushed to Redis window counters in the background; a chat or user
+ * that exceeds its limit across the cluster is blocked for the rest of the
+ * window on every node that sees it. A semaphore caps updates in flight.
+ */
+@Component
+@Slf4j
+public class IngressRateLimiter {
+
+    public enum Decision { ACCEPTED, CHAT_LIMITED, USER_LIMITED, OVERLOADED }
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ResilientCache resilientCache;
+    private final boolean enabled;
+    private final long windowSeconds;
+    private final BucketMap chatBuckets;
+    private final BucketMap userBuckets;
+    private final Semaphore inFlight;
+    private final Map<Decision, Counter> decisions = new EnumMap<>(Decision.class);
+
+    public IngressRateLimiter(StringRedisTemplate stringRedisTemplate,
+                              ResilientCache resilientCache,
+                              MeterRegistry meterRegistry,
+                              @Value("${ingress.rate-limit.enabled:true}") boolean enabled,
+                              @Value("${ingress.rate-limit.chat.per-second:5}") double chatPerSecond,
+                              @Value("${ingress.rate-limit.chat.burst:30}") int chatBurst,
+                              @Value("${ingress.rate-limit.user.per-second:1}") double userPerSecond,
+                              @Value("${ingress.rate-limit.user.burst:10}") int userBurst,
+                              @Value("${ingress.rate-limit.max-entries:100000}") int maxEntries,
+                              @Value("${ingress.rate-limit.stripes:16}") int stripes,
+                              @Value("${ingress.rate-limit.window-seconds:60}") long windowSeconds,
+                              @Value("${ingress.max-concurrent:64}") int maxConcurrent) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.resilientCache = resilientCache;
+        this.enabled = enabled;
+        this.windowSeconds = windowSeconds;
+        this.chatBuckets = new BucketMap("chat", chatPerSecond, chatBurst, windowSeconds, maxEntries, stripes);
+        this.userBuckets = new BucketMap("user", userPerSecond, userBurst, windowSeconds, maxEntries, stripes);
+        this.inFlight = new Semaphore(maxConcurrent);
+
+        for (Decision decision : Decision.values()) {
+            decisions.put(decision, Counter.builder("ingress.updates")
+                    .tag("result", decision.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("ingress.in_flight", inFlight, s -> maxConcurrent - s.availablePermits())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Decide whether to process an update. On ACCEPTED the caller must call release() when done.
+     */
+    public Decision tryAcquire(Long chatId, Long userId) {
+        Decision decision = decide(chatId, userId);
+        decisions.get(decision).increment();
+        return decision;
+    }
+
+    public void release() {
+        if (enabled) {
+            inFlight.release();
+        }
+    }
+
+    private Decision decide(Long chatId, Long userId) {
+        if (!enabled) {
+            return Decision.ACCEPTED;
+        }
+        long now = System.nanoTime();
+        long window = currentWindow();
+        if (userId != null && !userBuckets.tryConsume(userId, now, window)) {
+            return Decision.USER_LIMITED;
+        }
+        if (chatId != null && !chatBuckets.tryConsume(chatId, now, window)) {
+            return Decision.CHAT_LIMITED;
+        }
+        return inFlight.tryAcquire() ? Decision.ACCEPTED : Decision.OVERLOADED;
+    }
+
+    private long currentWindow() {
+        return System.currentTimeMillis() / 1000 / windowSeconds;
+    }
+
+    /**
+     * Push locally accepted counts to the shared window counters and block
+     * buckets whose cluster-wide total went over the limit
+     */
+    @Scheduled(fixedDelayString = "${ingress.rate-limit.sync-interval-ms:1000}")
+    public void syncWithCluster() {
+        if (!enabled) {
+            return;
+        }
+        long window = currentWindow();
+        sync(chatBuckets, window);
+        sync(userBuckets, window);
+    }
+
+    private void sync(BucketMap buckets, long window) {
+        List<long[]> pending = buckets.drainUnsynced();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Object> results = resilientCache.execute("sync " + buckets.kind + " rate limits", () ->
+                stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                        RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                        for (long[] entry : pending) {
+                            String key = KEY_PREFIX + buckets.kind + ":" + entry[0] + ":" + window;
+                            ops.opsForValue().increment(key, entry[1]);
+                            ops.expire(key, windowSeconds * 2, TimeUnit.SECONDS);
+                        }
+                        return null;
+                    }
+                }), null);
+        if (results == null) {
+            return;  // Redis unavailable: local buckets still apply
+        }
+
+        int blocked = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            Object total = results.get(i * 2);  // INCRBY and EXPIRE results alternate
+            if (total instanceof Long count && count > buckets.clusterLimit) {
+                buckets.block(pending.get(i)[0], window);
+                blocked++;
+            }
+        }
+        if (blocked > 0) {
+            log.warn("Blocked {} {}(s) over the cluster-wide ingress limit until the window ends", blocked, buckets.kind);
+        }
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long refilledAt;
+        long unsynced;
+        long blockedWindow = -1;
+
+        Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+
+    /**
+     * Access-ordered map that evicts the least recently seen bucket when full
+     */
+    private static final class Stripe extends LinkedHashMap<Long, Bucket> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Bucket> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private static final class BucketMap {
+        private final String kind;
+        private final double perSecond;
+        private final double burst;
+        private final long clusterLimit;
+        private final Stripe[] stripes;
+
+        BucketMap(String kind, double perSecond, int burst, long windowSeconds, int maxEntries, int stripeCount) {
+            this.kind = kind;
+            this.perSecond = perSecond;
+            this.burst = burst;
+            this.clusterLimit = burst + (long) Math.ceil(perSecond * windowSeconds);
+            this.stripes = new Stripe[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+                stripes[i] = new Stripe(Math.max(1, maxEntries / stripeCount));
+            }
+        }
+
+        boolean tryConsume(long id, long now, long window) {
+            Stripe stripe = stripeFor(id);
+            synchronized (stripe) {
+                Bucket bucket = stripe.computeIfAbsent(id, k -> new Bucket(burst, now));
+                if (bucket.blockedWindow == window) {
+                    return false;
+                }
+                bucket.tokens = Math.min(burst, bucket.tokens + (now - bucket.refilledAt) / 1e9 * perSecond);
+                bucket.refilledAt = now;
+                if (bucket.tokens < 1) {
+                    return false;
+                }
+                bucket.tokens -= 1;
+                bucket.unsynced++;
+                return true;
+            }
+        }
+
+        /**
+         * Collect and reset counts accepted since the last sync, as {id, count} pairs
+         */
+        List<long[]> drainUnsynced() {
+            List<long[]> pending = new ArrayList<>();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    for (Map.Entry<Long, Bucket> entry : stripe.entrySet()) {
+                        Bucket bucket = entry.getValue();
+                        if (bucket.unsynced > 0) {
+                            pending.add(new long[] {entry.getKey(), bucket.unsynced});
+                            bucket.unsynced = 0;
+                        }
+                    }
+                }
+            }
+            return pending;
+        }
+
+        void block(long id, long window) {
+            Stripe stripe = stripeFor(id);
+            synchronized (stripe) {
+                Bucket bucket = stripe.get(id);
+                if (bucket != null) {
+                    bucket.blockedWindow = window;
+                }
+            }
+        }
+
+        private Stripe stripeFor(long id) {
+            return stripes[Math.floorMod(Long.hashCode(id), stripes.length)];
+        }
+    }
+}
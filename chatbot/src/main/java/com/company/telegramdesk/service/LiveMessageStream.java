@@ -0,0 +1,281 @@
+package com.company.telegramdesk.service;
+
+import com.company.telegramdesk.model.dto.LiveMessage;
+import com.company.telegramdesk.model.dto.MessageSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Live feed of persisted messages for agent dashboards.
+ * Every message is appended to the Redis Stream stream:messages (capped with
+ * MAXLEN ~). One reader thread per node polls the stream and pushes entries
+ * into a multicast sink that serves any number of SSE subscribers, so Redis
+ * sees one reader per node no matter how many dashboards are open.
+ * Each subscriber has its own bounded buffer and loses its oldest events
+ * when it falls behind. A client that reconnects with Last-Event-ID is
+ * replayed the entries it missed, first from Redis and then from the sink's
+ * in-memory history.
+ */
+@Component
+@Slf4j
+public class LiveMessageStream {
+
+    private static final String STREAM_KEY = "stream:messages";
+    private static final Pattern STREAM_ID = Pattern.compile("\\d+(-\\d+)?");
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ResilientCache resilientCache;
+
+    @Value("${conversation.live-stream.enabled:true}")
+    private boolean enabled;
+
+    @Value("${conversation.live-stream.max-length:100000}")
+    private long maxLength;
+
+    @Value("${conversation.live-stream.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    @Value("${conversation.live-stream.batch-size:500}")
+    private int batchSize;
+
+    @Value("${conversation.live-stream.replay-limit:1000}")
+    private int replayLimit;
+
+    @Value("${conversation.live-stream.client-buffer:256}")
+    private int clientBuffer;
+
+    @Value("${conversation.live-stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    private final Sinks.Many<LiveMessage> sink;
+    private final Counter published;
+    private final Counter dropped;
+
+    private volatile String lastEmittedId;
+    private volatile boolean running;
+    private Thread reader;
+
+    public LiveMessageStream(StringRedisTemplate stringRedisTemplate,
+                             ResilientCache resilientCache,
+                             MeterRegistry meterRegistry,
+                             @Value("${conversation.live-stream.history-size:1000}") int historySize) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.resilientCache = resilientCache;
+        // The replay history closes the gap between a resume read and the live subscription
+        this.sink = Sinks.many().replay().limit(historySize);
+
+        this.published = Counter.builder("live.stream.events").tag("result", "published").register(meterRegistry);
+        this.dropped = Counter.builder("live.stream.events").tag("result", "dropped").register(meterRegistry);
+        Gauge.builder("live.stream.subscribers", sink, Sinks.Many::currentSubscriberCount)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Append a committed message to the stream
+     */
+    public void publish(String chatId, MessageSnapshot snapshot) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, String> fields = new HashMap<>();
+        fields.put("chatId", chatId);
+        fields.put("messageId", Objects.toString(snapshot.getId(), ""));
+        fields.put("conversationId", Objects.toString(snapshot.getConversationId(), ""));
+        fields.put("sender", Objects.toString(snapshot.getSender(), ""));
+        fields.put("text", Objects.toString(snapshot.getText(), ""));
+        fields.put("timestamp", Objects.toString(snapshot.getTimestamp(), ""));
+
+        boolean added = resilientCache.run("publish message " + snapshot.getId(), () ->
+                stringRedisTemplate.opsForStream().add(
+                        StreamRecords.newRecord().in(STREAM_KEY).ofMap(fields),
+                        XAddOptions.maxlen(maxLength).approximateTrimming(true)));
+        if (added) {
+            published.increment();
+        }
+    }
+
+    /**
+     * Server-sent events for one client. With lastEventId set, entries after
+     * it are replayed first (at most replay-limit of them).
+     */
+    public Flux<ServerSentEvent<LiveMessage>> subscribe(String lastEventId, String chatId) {
+        if (!enabled) {
+            return Flux.empty();
+        }
+        String resumeFrom = lastEventId != null && STREAM_ID.matcher(lastEventId).matches() ? lastEventId : null;
+
+        Flux<LiveMessage> messages = Flux.defer(() -> {
+            AtomicReference<String> cursor = new AtomicReference<>(resumeFrom != null ? resumeFrom : lastEmittedId);
+            Flux<LiveMessage> missed = resumeFrom == null
+                    ? Flux.empty()
+                    : Flux.defer(() -> Flux.fromIterable(readAfter(resumeFrom)));
+            // History may overlap the replayed entries; only pass what comes after them
+            Flux<LiveMessage> live = sink.asFlux()
+                    .filter(message -> cursor.get() == null || isAfter(message.getStreamId(), cursor.get()));
+            return Flux.concat(missed.doOnNext(message -> cursor.set(message.getStreamId())), live);
+        });
+
+        Flux<ServerSentEvent<LiveMessage>> events = messages
+                .filter(message -> chatId == null || chatId.equals(message.getChatId()))
+                .onBackpressureBuffer(clientBuffer, message -> dropped.increment(), BufferOverflowStrategy.DROP_OLDEST)
+                .map(message -> ServerSentEvent.<LiveMessage>builder()
+                        .id(message.getStreamId())
+                        .event("message")
+                        .data(message)
+                        .build());
+
+        // Comments keep idle connections open through proxies
+        Flux<ServerSentEvent<LiveMessage>> heartbeats = Flux.interval(Duration.ofSeconds(heartbeatSeconds))
+                .map(tick -> ServerSentEvent.<LiveMessage>builder().comment("keep-alive").build());
+
+        return events.mergeWith(heartbeats);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Live message stream is disabled");
+            return;
+        }
+        running = true;
+        reader = Thread.ofPlatform().name("live-stream-reader").daemon().start(this::readLoop);
+        log.info("✅ Live message stream reader started");
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (reader != null) {
+            reader.interrupt();
+        }
+        sink.tryEmitComplete();
+    }
+
+    private void readLoop() {
+        String cursor = null;
+        while (running) {
+            try {
+                if (cursor == null) {
+                    cursor = latestId();  // Start at the head; earlier entries are served by resume reads
+                }
+                List<MapRecord<String, Object, Object>> records = cursor == null ? List.of() : read(cursor);
+                for (MapRecord<String, Object, Object> record : records) {
+                    LiveMessage message = toLiveMessage(record);
+                    sink.tryEmitNext(message);
+                    lastEmittedId = message.getStreamId();
+                    cursor = message.getStreamId();
+                }
+                if (records.size() < batchSize) {
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Live message stream reader failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private String latestId() {
+        return resilientCache.execute("read message stream head", () -> {
+            List<MapRecord<String, Object, Object>> head = stringRedisTemplate.opsForStream()
+                    .reverseRange(STREAM_KEY, Range.unbounded(), Limit.limit().count(1));
+            return head == null || head.isEmpty() ? "0-0" : head.get(0).getId().getValue();
+        }, null);
+    }
+
+    private List<MapRecord<String, Object, Object>> read(String after) {
+        List<MapRecord<String, Object, Object>> records = resilientCache.execute("read message stream", () ->
+                stringRedisTemplate.opsForStream().read(
+                        StreamReadOptions.empty().count(batchSize),
+                        StreamOffset.create(STREAM_KEY, ReadOffset.from(after))), List.of());
+        return records != null ? records : List.of();
+    }
+
+    private List<LiveMessage> readAfter(String lastEventId) {
+        List<MapRecord<String, Object, Object>> records = resilientCache.execute("replay message stream", () ->
+                stringRedisTemplate.opsForStream().range(
+                        STREAM_KEY,
+                        Range.of(Range.Bound.inclusive(lastEventId), Range.Bound.unbounded()),
+                        Limit.limit().count(replayLimit + 1)), List.of());
+        if (records == null) {
+            return List.of();
+        }
+        return records.stream()
+                .map(this::toLiveMessage)
+                .filter(message -> isAfter(message.getStreamId(), lastEventId))
+                .toList();
+    }
+
+    private LiveMessage toLiveMessage(MapRecord<String, Object, Object> record) {
+        Map<Object, Object> fields = record.getValue();
+        return new LiveMessage(
+                record.getId().getValue(),
+                field(fields, "chatId"),
+                parseLong(field(fields, "messageId")),
+                parseLong(field(fields, "conversationId")),
+                field(fields, "sender"),
+                field(fields, "text"),
+                parseTimestamp(field(fields, "timestamp"))
+        );
+    }
+
+    private static String field(Map<Object, Object> fields, String name) {
+        Object value = fields.get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    private static Long parseLong(String value) {
+        return value == null || value.isEmpty() ? null : Long.valueOf(value);
+    }
+
+    private static LocalDateTime parseTimestamp(String value) {
+        return value == null || value.isEmpty() ? null : LocalDateTime.parse(value);
+    }
+
+    /**
+     * Stream ids are "millis-sequence"; compare numerically
+     */
+    private static boolean isAfter(String id, String other) {
+        int dash = id.indexOf('-');
+        int otherDash = other.indexOf('-');
+        long millis = Long.parseLong(dash < 0 ? id : id.substring(0, dash));
+        long otherMillis = Long.parseLong(otherDash < 0 ? other : other.substring(0, otherDash));
+        if (millis != otherMillis) {
+            return millis > otherMillis;
+        }
+        long seq = dash < 0 ? 0 : Long.parseLong(id.substring(dash + 1));
+        long otherSeq = otherDash < 0 ? 0 : Long.parseLong(other.substring(otherDash + 1));
+        return seq > otherSeq;
+    }
+}
@@ -0,0 +1,286 @@
+package com.company.telegramdesk.service;
+
+import com.company.telegramdesk.model.dto.MessageSnapshot;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded window of the latest messages per chat, newest first.
+ * Kept as a capped list in Redis (shared by all nodes) and in a local
+ * LRU of ring buffers that is refreshed from Redis after a short time.
+ * A window is only created from a complete source (a new conversation,
+ * or a database load), so it never serves a partial history. Every append
+ * bumps a per-chat version; a load only writes if the version is still the
+ * one read before its database query, so a message committed in between is
+ * not lost.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RecentMessageWindow {
+
+    private static final String KEY_PREFIX = "conversation:recent:";
+    private static final String VERSION_PREFIX = "conversation:recent-version:";
+
+    // KEYS: window, version; ARGV: expected version, ttl seconds, messages (serialized)
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('get', KEYS[2]) or '0') ~= ARGV[1] then return 0 end " +
+                    "redis.call('del', KEYS[1]) " +
+                    "redis.call('rpush', KEYS[1], unpack(ARGV, 3)) " +
+                    "redis.call('expire', KEYS[1], ARGV[2]) " +
+                    "return 1",
+            Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ResilientCache resilientCache;
+
+    @Value("${conversation.recent-window.size:50}")
+    private int windowSize;
+
+    @Value("${conversation.recent-window.ttl-hours:1}")
+    private long ttlHours;
+
+    @Value("${conversation.recent-window.local-chats:10000}")
+    private int maxLocalChats;
+
+    @Value("${conversation.recent-window.local-ttl-ms:5000}")
+    private long localTtlMs;
+
+    private Map<String, Ring> localWindows;
+
+    private final Set<String> staleWindows = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() {
+        localWindows = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ring> eldest) {
+                return size() > maxLocalChats;
+            }
+        });
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Add a persisted message to the window.
+     * For existing chats the Redis list is only extended if it already exists.
+     */
+    public void append(String chatId, MessageSnapshot message, boolean newConversation) {
+        Ring ring = localWindows.get(chatId);
+        if (ring != null) {
+            ring.push(message);
+        } else if (newConversation) {
+            Ring fresh = new Ring(windowSize);
+            fresh.push(message);
+            localWindows.put(chatId, fresh);
+        }
+
+        String key = KEY_PREFIX + chatId;
+        boolean written = resilientCache.run("append to recent window of " + chatId, () ->
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                        RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                        if (newConversation) {
+                            ops.opsForList().leftPush(key, message);
+                        } else {
+                            ops.opsForList().leftPushIfPresent(key, message);
+                        }
+                        ops.opsForList().trim(key, 0, windowSize - 1);
+                        ops.expire(key, ttlHours, TimeUnit.HOURS);
+                        bumpVersion(ops, chatId);
+                        return null;
+                    }
+                }));
+
+        if (!written) {
+            // The Redis window (if any) now misses this message; drop it once Redis is back
+            staleWindows.add(chatId);
+        }
+    }
+
+    /**
+     * Latest messages, newest first, or empty if the window is not loaded
+     */
+    public Optional<List<MessageSnapshot>> getRecent(String chatId, int limit) {
+        Ring ring = localWindows.get(chatId);
+        if (ring != null && !ring.isStale(localTtlMs)) {
+            return Optional.of(ring.latest(limit));
+        }
+
+        if (staleWindows.contains(chatId)) {
+            return Optional.empty();
+        }
+
+        List<Object> cached = resilientCache.execute("read recent window of " + chatId,
+                () -> redisTemplate.opsForList().range(KEY_PREFIX + chatId, 0, windowSize - 1), null);
+        if (cached != null && !cached.isEmpty()) {
+            List<MessageSnapshot> messages = new ArrayList<>(cached.size());
+            for (Object entry : cached) {
+                if (entry instanceof MessageSnapshot snapshot) {
+                    messages.add(snapshot);
+                }
+            }
+            localWindows.put(chatId, Ring.of(windowSize, messages));
+            return Optional.of(messages.subList(0, Math.min(limit, messages.size())));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Version to pass to load(), read before the database query; null if Redis is unavailable
+     */
+    public String currentVersion(String chatId) {
+        return resilientCache.execute("read recent window version of " + chatId, () -> {
+            String version = stringRedisTemplate.opsForValue().get(VERSION_PREFIX + chatId);
+            return version != null ? version : "0";
+        }, null);
+    }
+
+    /**
+     * Fill the window from a complete database read (newest first), unless a message
+     * was appended since {@code version} was read; the read then misses it and is not kept
+     */
+    @SuppressWarnings("unchecked")
+    public void load(String chatId, List<MessageSnapshot> latest, String version) {
+        List<MessageSnapshot> messages = latest.subList(0, Math.min(windowSize, latest.size()));
+        if (messages.isEmpty() || version == null) {
+            return;
+        }
+
+        RedisSerializer<Object> serializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        List<byte[]> args = new ArrayList<>(messages.size() + 2);
+        args.add(version.getBytes(StandardCharsets.UTF_8));
+        args.add(String.valueOf(TimeUnit.HOURS.toSeconds(ttlHours)).getBytes(StandardCharsets.UTF_8));
+        for (MessageSnapshot message : messages) {
+            args.add(serializer.serialize(message));
+        }
+
+        Long loaded = resilientCache.execute("load recent window of " + chatId, () ->
+                redisTemplate.execute(LOAD_SCRIPT, RedisSerializer.byteArray(), new GenericToStringSerializer<>(Long.class),
+                        List.of(KEY_PREFIX + chatId, VERSION_PREFIX + chatId), args.toArray()), null);
+        if (loaded == null) {
+            return;
+        }
+        if (loaded == 1) {
+            localWindows.put(chatId, Ring.of(windowSize, messages));
+            staleWindows.remove(chatId);
+        } else {
+            log.debug("Recent window of chat {} changed during load, not caching it", chatId);
+        }
+    }
+
+    public void invalidate(String chatId) {
+        localWindows.remove(chatId);
+        boolean deleted = resilientCache.run("invalidate recent window of " + chatId, () ->
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                        RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                        ops.delete(KEY_PREFIX + chatId);
+                        bumpVersion(ops, chatId);  // Loads that read before the delete must not write
+                        return null;
+                    }
+                }));
+        if (!deleted) {
+            staleWindows.add(chatId);
+        }
+    }
+
+    private void bumpVersion(RedisOperations<String, Object> ops, String chatId) {
+        ops.opsForValue().increment(VERSION_PREFIX + chatId);
+        ops.expire(VERSION_PREFIX + chatId, ttlHours * 2, TimeUnit.HOURS);
+    }
+
+    /**
+     * Delete Redis windows that missed appends while Redis was unavailable
+     */
+    @Scheduled(fixedDelayString = "${conversation.recent-window.repair-interval-ms:5000}")
+    public void dropStaleWindows() {
+        if (staleWindows.isEmpty() || resilientCache.getState() == ResilientCache.State.OPEN) {
+            return;
+        }
+        List<String> chatIds = new ArrayList<>(staleWindows);
+        boolean deleted = resilientCache.run("drop " + chatIds.size() + " stale recent windows",
+                () -> redisTemplate.delete(chatIds.stream().map(id -> KEY_PREFIX + id).toList()));
+        if (deleted) {
+            chatIds.forEach(staleWindows::remove);
+            log.info("Dropped {} recent windows that missed appends during a Redis outage", chatIds.size());
+        }
+    }
+
+    /**
+     * Fixed-size ring buffer of the latest messages of one chat
+     */
+    private static final class Ring {
+        private final ArrayDeque<MessageSnapshot> messages;
+        private final int capacity;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Ring(int capacity) {
+            this.capacity = capacity;
+            this.messages = new ArrayDeque<>(capacity);
+        }
+
+        static Ring of(int capacity, List<MessageSnapshot> newestFirst) {
+            Ring ring = new Ring(capacity);
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                ring.push(newestFirst.get(i));
+            }
+            return ring;
+        }
+
+        synchronized void push(MessageSnapshot message) {
+            if (messages.size() == capacity) {
+                messages.pollLast();
+            }
+            messages.addFirst(message);
+        }
+
+        synchronized List<MessageSnapshot> latest(int limit) {
+            List<MessageSnapshot> result = new ArrayList<>(Math.min(limit, messages.size()));
+            for (MessageSnapshot message : messages) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(message);
+            }
+            return result;
+        }
+
+        boolean isStale(long ttlMs) {
+            return System.currentTimeMillis() - loadedAt > ttlMs;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.company.telegramdesk.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker around Redis cache calls.
+ * After a run of failures the circuit opens and cache calls return their
+ * fallback immediately, so callers go straight to Postgres. A background
+ * probe pings Redis and lets traffic through again once it answers.
+ * Per-call deadlines come from the short Redis client timeout.
+ */
+@Component
+@Slf4j
+public class ResilientCache {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final int failureThreshold;
+    private final long openMs;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter bypassed;
+
+    public ResilientCache(RedisTemplate<String, Object> redisTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${cache.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                          @Value("${cache.circuit-breaker.open-ms:5000}") long openMs) {
+        this.redisTemplate = redisTemplate;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+
+        this.successes = Counter.builder("cache.redis.calls").tag("result", "success").register(meterRegistry);
+        this.failures = Counter.builder("cache.redis.calls").tag("result", "failure").register(meterRegistry);
+        this.bypassed = Counter.builder("cache.redis.calls").tag("result", "bypassed").register(meterRegistry);
+        Gauge.builder("cache.redis.circuit.state", state, s -> s.get().ordinal())
+                .description("0 = closed, 1 = half-open, 2 = open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a Redis call, or return the fallback if it fails or the circuit is open
+     */
+    public <T> T execute(String operation, Supplier<T> call, T fallback) {
+        if (state.get() == State.OPEN) {
+            bypassed.increment();
+            return fallback;
+        }
+        try {
+            T result = call.get();
+            onSuccess();
+            return result;
+        } catch (Exception e) {
+            onFailure(operation, e);
+            return fallback;
+        }
+    }
+
+    /**
+     * Run a Redis call for its side effect; returns false if it failed or was bypassed
+     */
+    public boolean run(String operation, Runnable call) {
+        return execute(operation, () -> {
+            call.run();
+            return true;
+        }, false);
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    private void onSuccess() {
+        successes.increment();
+        consecutiveFailures.set(0);
+        if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            log.info("✅ Redis recovered, cache circuit closed");
+        }
+    }
+
+    private void onFailure(String operation, Exception e) {
+        failures.increment();
+        log.warn("Redis {} failed: {}", operation, e.getMessage());
+
+        int failuresInRow = consecutiveFailures.incrementAndGet();
+        if (state.get() == State.HALF_OPEN || failuresInRow >= failureThreshold) {
+            openedAt = System.currentTimeMillis();
+            if (state.getAndSet(State.OPEN) != State.OPEN) {
+                log.error("❌ Redis cache circuit opened after {} failures, bypassing cache for {} ms",
+                        failuresInRow, openMs);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cache.circuit-breaker.probe-interval-ms:1000}")
+    public void probe() {
+        if (state.get() != State.OPEN || System.currentTimeMillis() - openedAt < openMs) {
+            return;
+        }
+        try {
+            String pong = redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+            if ("PONG".equalsIgnoreCase(pong)) {
+                consecutiveFailures.set(0);
+                state.set(State.HALF_OPEN);
+                log.info("Redis answered probe, cache circuit half-open");
+            }
+        } catch (Exception e) {
+            openedAt = System.currentTimeMillis();
+            log.debug("Redis probe failed: {}", e.getMessage());
+        }
+    }
+}
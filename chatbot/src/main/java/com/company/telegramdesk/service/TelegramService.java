@@ -19,6 +19,9 @@ public class TelegramService {
     @Value("${telegram.bot-token}")
     private String botToken;
 
+    @Value("${telegram.api-url:https://api.telegram.org}")
+    private String apiUrl;
+
     private final RestTemplate restTemplate;
 
     public TelegramService() {
@@ -27,8 +30,8 @@ public class TelegramService {
 
     public void sendMessage(String chatId, String text) {
         String url = String.format(
-                "https://api.telegram.org/bot%s/sendMessage",
-                botToken
+                "%s/bot%s/sendMessage",
+                apiUrl, botToken
         );
 
         Map<String, Object> payload = new HashMap<>();
@@ -43,7 +46,7 @@ public class TelegramService {
 
         try {
             ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            log.info("Message sent to chat {}: {}", chatId, response.getStatusCode());
+            log.debug("Message sent to chat {}: {}", chatId, response.getStatusCode());
         } catch (Exception e) {
             log.error("Failed to send message to chat {}", chatId, e);
             throw new RuntimeException("Failed to send Telegram message", e);
@@ -52,8 +55,8 @@ public class TelegramService {
 
     public void sendMessage(String chatId, String text, Long replyToMessageId) {
         String url = String.format(
-                "https://api.telegram.org/bot%s/sendMessage",
-                botToken
+                "%s/bot%s/sendMessage",
+                apiUrl, botToken
         );
 
         Map<String, Object> payload = new HashMap<>();
@@ -71,7 +74,7 @@ public class TelegramService {
 
         try {
             ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            log.info("Reply sent to chat {}: {}", chatId, response.getStatusCode());
+            log.debug("Reply sent to chat {}: {}", chatId, response.getStatusCode());
         } catch (Exception e) {
             log.error("Failed to send reply to chat {}", chatId, e);
             throw new RuntimeException("Failed to send Telegram reply", e);
@@ -80,8 +83,8 @@ public class TelegramService {
 
     public Map<String, Object> getWebhookInfo() {
         String url = String.format(
-                "https://api.telegram.org/bot%s/getWebhookInfo",
-                botToken
+                "%s/bot%s/getWebhookInfo",
+                apiUrl, botToken
         );
 
         try {
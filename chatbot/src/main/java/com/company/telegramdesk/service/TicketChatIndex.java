@@ -0,0 +1,78 @@
+package com.company.telegramdesk.service;
+
+import com.company.telegramdesk.model.entity.Conversation;
+import com.company.telegramdesk.repository.ConversationRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Maps Zoho Desk ticket ids to Telegram chat ids.
+ * Lookups go local LRU -> Redis hash -> database, so agent replies do not
+ * query Postgres on every event.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TicketChatIndex {
+
+    private static final String INDEX_KEY = "zoho:ticket-chat";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ConversationRepository conversationRepository;
+    private final ResilientCache resilientCache;
+
+    @Value("${zoho.ticket-index.local-size:10000}")
+    private int maxLocalEntries;
+
+    private Map<String, String> localIndex;
+
+    @PostConstruct
+    void init() {
+        localIndex = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxLocalEntries;
+            }
+        });
+    }
+
+    public Optional<String> findChatId(String ticketId) {
+        String chatId = localIndex.get(ticketId);
+        if (chatId != null) {
+            return Optional.of(chatId);
+        }
+
+        Object cached = resilientCache.execute("read ticket index for " + ticketId,
+                () -> stringRedisTemplate.opsForHash().get(INDEX_KEY, ticketId), null);
+        if (cached != null) {
+            localIndex.put(ticketId, cached.toString());
+            return Optional.of(cached.toString());
+        }
+
+        Optional<String> fromDb = conversationRepository.findByZohoDeskTicketId(ticketId)
+                .map(Conversation::getChatId);
+        fromDb.ifPresent(id -> put(ticketId, id));
+        return fromDb;
+    }
+
+    public void put(String ticketId, String chatId) {
+        localIndex.put(ticketId, chatId);
+        resilientCache.run("update ticket index for " + ticketId,
+                () -> stringRedisTemplate.opsForHash().put(INDEX_KEY, ticketId, chatId));
+    }
+
+    public void remove(String ticketId) {
+        localIndex.remove(ticketId);
+        resilientCache.run("remove ticket " + ticketId + " from index",
+                () -> stringRedisTemplate.opsForHash().delete(INDEX_KEY, ticketId));
+    }
+}
@@ -0,0 +1,205 @@
+package com.company.telegramdesk.service;
+
+import com.company.telegramdesk.analytics.SlidingWindow;
+import com.company.telegramdesk.analytics.TrafficSummary;
+import com.company.telegramdesk.model.dto.TrafficStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Approximate traffic analytics in fixed memory, fed by the ingest path.
+ * Two sliding windows: the last hour (12 x 5 min buckets) and the last
+ * day (24 x 1 h buckets). Each bucket keeps a count-min sketch of messages
+ * per chat with a small set of hot-chat candidates, and a HyperLogLog of
+ * distinct users. Every node publishes its window summaries to Redis;
+ * queries merge the summaries of all live nodes.
+ * Messages are handed over through a bounded queue and counted by a single
+ * thread, so request threads never wait on the sketches; when the queue is
+ * full the message is not counted.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TrafficAnalytics {
+
+    private static final String KEY_PREFIX = "analytics:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ResilientCache resilientCache;
+    private final ClusterNodeRegistry nodeRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${analytics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${analytics.top-k:20}")
+    private int topK;
+
+    @Value("${analytics.sketch.depth:4}")
+    private int depth;
+
+    @Value("${analytics.sketch.width:2048}")
+    private int width;
+
+    @Value("${analytics.sketch.hll-precision:12}")
+    private int precision;
+
+    @Value("${analytics.publish-interval-ms:30000}")
+    private long publishIntervalMs;
+
+    @Value("${analytics.queue-capacity:65536}")
+    private int queueCapacity;
+
+    private final Map<String, SlidingWindow> windows = new LinkedHashMap<>();
+
+    private BlockingQueue<Hit> queue;
+    private Counter dropped;
+    private volatile boolean running;
+    private Thread recorder;
+
+    private record Hit(long chatId, Long userId, long time) {
+    }
+
+    @PostConstruct
+    void init() {
+        windows.put("hour", new SlidingWindow(12, Duration.ofMinutes(5).toMillis(), this::emptySummary));
+        windows.put("day", new SlidingWindow(24, Duration.ofHours(1).toMillis(), this::emptySummary));
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        dropped = Counter.builder("analytics.dropped").register(meterRegistry);
+        if (enabled) {
+            running = true;
+            recorder = Thread.ofPlatform().name("analytics-recorder").daemon().start(this::recordLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (recorder != null) {
+            recorder.interrupt();
+        }
+    }
+
+    /**
+     * Count one incoming user message
+     */
+    public void record(String chatId, Long userId) {
+        if (!enabled) {
+            return;
+        }
+        long chat;
+        try {
+            chat = Long.parseLong(chatId);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (!queue.offer(new Hit(chat, userId, System.currentTimeMillis()))) {
+            dropped.increment();
+        }
+    }
+
+    private void recordLoop() {
+        List<Hit> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, 1023);
+                for (Hit hit : batch) {
+                    for (SlidingWindow window : windows.values()) {
+                        window.record(hit.chatId(), hit.userId(), hit.time());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Traffic analytics recorder failed: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Stats for a window ("hour" or "day"), merged across live nodes
+     */
+    public TrafficStats getStats(String windowName, int limit) {
+        SlidingWindow window = windows.get(windowName);
+        if (window == null) {
+            throw new IllegalArgumentException("Unknown window: " + windowName + " (expected one of " + windows.keySet() + ")");
+        }
+
+        TrafficSummary merged = window.snapshot(System.currentTimeMillis());
+        int nodes = 1;
+
+        List<String> keys = new ArrayList<>();
+        for (String node : nodeRegistry.getLiveNodes()) {
+            if (!node.equals(nodeRegistry.getNodeId())) {
+                keys.add(KEY_PREFIX + windowName + ":" + node);
+            }
+        }
+        if (!keys.isEmpty()) {
+            List<String> encoded = resilientCache.execute("read analytics summaries",
+                    () -> stringRedisTemplate.opsForValue().multiGet(keys), null);
+            if (encoded != null) {
+                for (String value : encoded) {
+                    if (value == null) {
+                        continue;  // Node has not published yet
+                    }
+                    try {
+                        merged.merge(TrafficSummary.fromBytes(Base64.getDecoder().decode(value)));
+                        nodes++;
+                    } catch (Exception e) {
+                        log.warn("Skipping unreadable analytics summary: {}", e.getMessage());
+                    }
+                }
+            }
+        }
+
+        List<TrafficStats.HotChat> hotChats = merged.topChats(Math.min(limit, topK)).stream()
+                .map(entry -> new TrafficStats.HotChat(entry.getKey().toString(), entry.getValue()))
+                .toList();
+        return new TrafficStats(windowName, merged.getMessages(), merged.getUniqueUsers(), nodes, hotChats);
+    }
+
+    /**
+     * Publish this node's window summaries for the other nodes to merge
+     */
+    @Scheduled(fixedDelayString = "${analytics.publish-interval-ms:30000}")
+    public void publish() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, SlidingWindow> entry : windows.entrySet()) {
+            String key = KEY_PREFIX + entry.getKey() + ":" + nodeRegistry.getNodeId();
+            String value = Base64.getEncoder().encodeToString(entry.getValue().snapshot(now).toBytes());
+            // Expires soon after the node stops publishing
+            resilientCache.run("publish analytics " + entry.getKey(), () ->
+                    stringRedisTemplate.opsForValue().set(key, value, publishIntervalMs * 3, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private TrafficSummary emptySummary() {
+        return new TrafficSummary(depth, width, precision, topK * 4);
+    }
+}
@@ -0,0 +1,178 @@
+package com.company.telegramdesk.service;
+
+import com.company.telegramdesk.model.dto.telegram.TelegramUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Forwards Telegram updates to the node that owns the chat on the hash ring,
+ * so per-chat state (cache, rate limits, ack windows) stays on one node.
+ * A forwarded update carries the sender's node id and the internal token and
+ * is always processed where it lands, so disagreeing membership views cannot
+ * bounce it around. When the owner cannot be reached the update is processed
+ * locally, as it was before routing existed. Once the request may have reached
+ * the owner (read timeout, server error) it is not processed again here, since
+ * that would store the message twice. Forwards in flight are capped; above the
+ * cap updates are processed locally instead of tying up request threads.
+ */
+@Component
+@Slf4j
+public class UpdateForwarder {
+
+    public static final String FORWARDED_BY_HEADER = "X-Forwarded-By-Node";
+    public static final String TOKEN_HEADER = "X-Internal-Token";
+
+    private final ChatRouter chatRouter;
+    private final ClusterNodeRegistry nodeRegistry;
+    private final RestTemplate restTemplate;
+    private final boolean enabled;
+    private final String internalToken;
+    private final Semaphore inFlight;
+
+    private final Counter local;
+    private final Counter forwarded;
+    private final Counter fallback;
+    private final Counter unconfirmed;
+
+    public UpdateForwarder(ChatRouter chatRouter,
+                           ClusterNodeRegistry nodeRegistry,
+                           MeterRegistry meterRegistry,
+                           @Value("${cluster.routing.enabled:false}") boolean enabled,
+                           @Value("${cluster.routing.internal-token:}") String internalToken,
+                           @Value("${cluster.routing.connect-timeout-ms:200}") int connectTimeoutMs,
+                           @Value("${cluster.routing.read-timeout-ms:3000}") int readTimeoutMs,
+                           @Value("${cluster.routing.max-in-flight:32}") int maxInFlight) {
+        this.chatRouter = chatRouter;
+        this.nodeRegistry = nodeRegistry;
+        if (enabled && internalToken.isBlank()) {
+            // Without a token anyone could send X-Forwarded-By-Node and skip owner routing
+            throw new IllegalStateException("cluster.routing.enabled requires cluster.routing.internal-token (CLUSTER_INTERNAL_TOKEN)");
+        }
+        this.enabled = enabled;
+        this.internalToken = internalToken;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        this.restTemplate = new RestTemplate(requestFactory);
+
+        this.local = Counter.builder("routing.updates").tag("result", "local").register(meterRegistry);
+        this.forwarded = Counter.builder("routing.updates").tag("result", "forwarded").register(meterRegistry);
+        this.fallback = Counter.builder("routing.updates").tag("result", "fallback").register(meterRegistry);
+        this.unconfirmed = Counter.builder("routing.updates").tag("result", "unconfirmed").register(meterRegistry);
+        Gauge.builder("routing.in_flight", inFlight, sem -> maxInFlight - sem.availablePermits())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the request came from another node of this cluster. Never true without
+     * a configured token, so the header alone cannot bypass routing.
+     */
+    public boolean isForwarded(String forwardedBy, String token) {
+        if (forwardedBy == null || internalToken.isEmpty()) {
+            return false;
+        }
+        if (token == null || !MessageDigest.isEqual(
+                internalToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Ignoring {} header with an invalid internal token", FORWARDED_BY_HEADER);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Send the update to the chat's owner if that is another node.
+     * Returns false when it should be processed here.
+     */
+    public boolean forwardIfRemote(TelegramUpdate update, String chatId) {
+        if (!enabled || chatId == null) {
+            return false;
+        }
+        String owner = chatRouter.ownerOf(chatId);
+        if (owner.equals(nodeRegistry.getNodeId())) {
+            local.increment();
+            return false;
+        }
+
+        Optional<String> ownerUrl = nodeRegistry.getNodeUrl(owner);
+        if (ownerUrl.isEmpty()) {
+            fallback.increment();
+            log.debug("No URL known for node {}, processing chat {} locally", owner, chatId);
+            return false;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(FORWARDED_BY_HEADER, nodeRegistry.getNodeId());
+        headers.set(TOKEN_HEADER, internalToken);
+
+        if (!inFlight.tryAcquire()) {
+            fallback.increment();
+            log.debug("Too many forwards in flight, processing chat {} locally", chatId);
+            return false;
+        }
+        try {
+            restTemplate.postForEntity(ownerUrl.get() + "/webhook/telegram", new HttpEntity<>(update, headers), String.class);
+            forwarded.increment();
+            log.debug("Forwarded update {} for chat {} to {}", update.getUpdateId(), chatId, owner);
+            return true;
+        } catch (RestClientException e) {
+            if (!reachedOwner(e)) {
+                fallback.increment();
+                log.warn("Failed to forward update {} to {}, processing locally: {}",
+                        update.getUpdateId(), owner, e.getMessage());
+                return false;
+            }
+            unconfirmed.increment();
+            log.warn("Forward of update {} to {} unconfirmed, not processing it again: {}",
+                    update.getUpdateId(), owner, e.getMessage());
+            return true;
+        } catch (IllegalArgumentException e) {
+            fallback.increment();
+            log.warn("Invalid URL for node {}, processing update {} locally: {}", owner, update.getUpdateId(), e.getMessage());
+            return false;
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Whether the owner may have processed the update. Connection failures and
+     * 4xx rejections happen before processing; a read timeout or 5xx may not.
+     */
+    private static boolean reachedOwner(RestClientException e) {
+        if (e instanceof HttpClientErrorException) {
+            return false;
+        }
+        if (e instanceof ResourceAccessException) {
+            Throwable cause = e.getMostSpecificCause();
+            boolean connectTimeout = cause instanceof SocketTimeoutException
+                    && cause.getMessage() != null && cause.getMessage().startsWith("Connect timed out");
+            return !(connectTimeout || cause instanceof ConnectException
+                    || cause instanceof NoRouteToHostException || cause instanceof UnknownHostException);
+        }
+        return true;
+    }
+}
@@ -1,23 +1,50 @@
 package com.company.telegramdesk.task;
 
+import com.company.telegramdesk.model.dto.ArchivedConversation;
+import com.company.telegramdesk.model.dto.MessageSnapshot;
+import com.company.telegramdesk.model.dto.TrafficStats;
 import com.company.telegramdesk.model.entity.Conversation;
+import com.company.telegramdesk.model.entity.Message;
 import com.company.telegramdesk.repository.ConversationRepository;
+import com.company.telegramdesk.repository.MessageRepository;
+import com.company.telegramdesk.service.ConversationArchive;
+import com.company.telegramdesk.service.ConversationService;
+import com.company.telegramdesk.service.DistributedLockService;
+import com.company.telegramdesk.service.TrafficAnalytics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class ConversationCleanupTask {
 
+    private static final String CLEANUP_JOB = "conversation-cleanup";
+    private static final String STATISTICS_JOB = "conversation-statistics";
+
     private final ConversationRepository conversationRepository;
+    private final MessageRepository messageRepository;
+    private final ConversationArchive conversationArchive;
+    private final ConversationService conversationService;
+    private final ShardedJobRunner shardedJobRunner;
+    private final DistributedLockService lockService;
+    private final TransactionTemplate transactionTemplate;
+    private final TrafficAnalytics trafficAnalytics;
 
     @Value("${conversation.cleanup.retention-days:7}")
     private int retentionDays;
@@ -25,25 +52,57 @@ public class ConversationCleanupTask {
     @Value("${conversation.cleanup.enabled:true}")
     private boolean cleanupEnabled;
 
+    @Value("${conversation.archive.enabled:true}")
+    private boolean archiveEnabled;
+
+    @Value("${conversation.cleanup.shards:8}")
+    private int shardCount;
+
+    @Value("${conversation.cleanup.lock-hold-ms:3600000}")
+    private long lockHoldMs;
+
+    @Value("${cluster.lock.lease-ms:60000}")
+    private long leaseMs;
+
     /**
-     * Run daily at 2 AM to clean up old conversations
+     * Run daily at 2 AM to clean up old conversations.
+     * The work is sharded by conversation id across the live nodes. Conversations are
+     * written to the archive first and only deleted once their segment is on disk.
      */
     @Scheduled(cron = "${conversation.cleanup.cron:0 0 2 * * ?}")
-    @Transactional
     public void cleanupOldConversations() {
         if (!cleanupEnabled) {
             log.debug("Conversation cleanup is disabled");
             return;
         }
 
-        log.info("Starting conversation cleanup task (retention: {} days)", retentionDays);
+        log.info("Starting conversation cleanup task (retention: {} days, shards: {})", retentionDays, shardCount);
 
         LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
-        List<Conversation> oldConversations = conversationRepository.findByLastMessageTimeBefore(cutoff);
+        AtomicInteger deleted = new AtomicInteger();
+
+        int shardsProcessed = shardedJobRunner.run(CLEANUP_JOB, shardCount, Duration.ofMillis(lockHoldMs),
+                (shard, checkLease) -> deleted.addAndGet(transactionTemplate.execute(status -> {
+                    int count = cleanupShard(cutoff, shard);
+                    checkLease.run();  // Roll back if another node may have taken the shard over
+                    return count;
+                })));
+
+        log.info("✅ Cleanup finished on this node: {} shards processed, {} conversations deleted",
+                shardsProcessed, deleted.get());
+    }
+
+    /**
+     * Runs in one transaction. The candidates are locked first, so the messages read for
+     * the archive are all the messages the cascading delete removes.
+     */
+    private int cleanupShard(LocalDateTime cutoff, int shard) {
+        List<Conversation> oldConversations = conversationRepository
+                .findByLastMessageTimeBeforeInShard(cutoff, shardCount, shard);
 
         if (oldConversations.isEmpty()) {
-            log.info("No conversations to clean up");
-            return;
+            log.debug("No conversations to clean up in shard {}", shard);
+            return 0;
         }
 
         // Only delete conversations that have been synced to Zoho (or don't have ticket)
@@ -52,19 +111,58 @@ public class ConversationCleanupTask {
                 .toList();
 
         if (!toDelete.isEmpty()) {
+            if (archiveEnabled) {
+                archive(toDelete);
+            }
             conversationRepository.deleteAll(toDelete);
-            log.info("✅ Cleaned up {} old conversations (out of {} found)",
-                    toDelete.size(), oldConversations.size());
+            List<String> chatIds = toDelete.stream().map(Conversation::getChatId).toList();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    chatIds.forEach(conversationService::evict);
+                }
+            });
+            log.info("Shard {}: cleaned up {} old conversations (out of {} found)",
+                    shard, toDelete.size(), oldConversations.size());
         } else {
-            log.info("No conversations eligible for cleanup (all have active tickets)");
+            log.info("Shard {}: no conversations eligible for cleanup (all have active tickets)", shard);
         }
+        return toDelete.size();
     }
 
     /**
-     * Optional: Run every hour to log statistics
+     * Write the conversations and their messages to a new archive segment.
+     * Throws (rolling back the shard) if the segment could not be written.
+     */
+    private void archive(List<Conversation> conversations) {
+        Map<Long, List<MessageSnapshot>> messagesByConversation = messageRepository
+                .findByConversationIdIn(conversations.stream().map(Conversation::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(
+                        (Message m) -> m.getConversation().getId(),
+                        Collectors.mapping(m -> MessageSnapshot.of(m, m.getConversation().getId()), Collectors.toList())));
+
+        List<ArchivedConversation> archived = conversations.stream()
+                .map(c -> ArchivedConversation.of(c, messagesByConversation.getOrDefault(c.getId(), List.of())))
+                .toList();
+
+        try {
+            conversationArchive.writeSegment(archived);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive " + conversations.size() + " conversations", e);
+        }
+    }
+
+    /**
+     * Optional: Run every hour to log statistics (on one node only)
      */
     @Scheduled(cron = "0 0 * * * ?")
     public void logStatistics() {
+        if (!lockService.tryAcquire(STATISTICS_JOB, Duration.ofMillis(leaseMs))) {
+            log.debug("Statistics already logged by another node");
+            return;
+        }
+
         try {
             long totalConversations = conversationRepository.count();
             long unsyncedConversations = conversationRepository.countBySyncedToZohoFalse();
@@ -74,8 +172,14 @@ public class ConversationCleanupTask {
 
             log.info("📊 Conversation Statistics: Total={}, Unsynced={}, Last24h={}",
                     totalConversations, unsyncedConversations, recentConversations.size());
+
+            TrafficStats traffic = trafficAnalytics.getStats("day", 5);
+            log.info("📊 Traffic (24h, approximate): Messages={}, UniqueUsers={}, HotChats={}",
+                    traffic.getMessages(), traffic.getUniqueUsers(), traffic.getHotChats());
         } catch (Exception e) {
             log.error("Error logging statistics", e);
+        } finally {
+            lockService.complete(STATISTICS_JOB, Duration.ofMinutes(5));
         }
     }
 }
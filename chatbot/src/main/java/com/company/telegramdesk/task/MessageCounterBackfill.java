@@ -0,0 +1,51 @@
+package com.company.telegramdesk.task;
+
+import com.company.telegramdesk.repository.ConversationRepository;
+import com.company.telegramdesk.service.DistributedLockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Fills the denormalized message counters for conversations created before
+ * the columns existed. Runs once per deployment (one node, guarded by a lock)
+ * and before the cache warm-up, so warmed entries carry correct counts.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MessageCounterBackfill {
+
+    private static final String LOCK_NAME = "message-counter-backfill";
+
+    private final ConversationRepository conversationRepository;
+    private final DistributedLockService lockService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!lockService.tryAcquire(LOCK_NAME, Duration.ofMinutes(10))) {
+            log.debug("Message counter backfill is running or done on another node");
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Integer updated = transactionTemplate.execute(status -> conversationRepository.backfillMessageCounters());
+            log.info("✅ Message counters backfilled for {} conversations in {} ms",
+                    updated, System.currentTimeMillis() - start);
+            lockService.complete(LOCK_NAME, Duration.ofHours(1));
+        } catch (Exception e) {
+            log.error("❌ Message counter backfill failed: {}", e.getMessage());
+            lockService.release(LOCK_NAME);
+        }
+    }
+}
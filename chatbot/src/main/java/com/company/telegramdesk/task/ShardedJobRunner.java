@@ -0,0 +1,131 @@
+package com.company.telegramdesk.task;
+
+import com.company.telegramdesk.service.ClusterNodeRegistry;
+import com.company.telegramdesk.service.DistributedLockService;
+import com.company.telegramdesk.service.DistributedLockService.LockState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits a scheduled job into shards and spreads them over the live nodes.
+ * Every node walks all shards starting at its own offset and claims the free
+ * ones with a lease; shards whose owner died are taken over when the lease lapses.
+ * Shard work must call the lease check before committing: if the lease was lost
+ * another node may be working on the same shard, and the work has to roll back.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ShardedJobRunner {
+
+    private final DistributedLockService lockService;
+    private final ClusterNodeRegistry nodeRegistry;
+
+    @Value("${cluster.lock.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${cluster.sharding.takeover-wait-ms:600000}")
+    private long takeoverWaitMs;
+
+    @FunctionalInterface
+    public interface ShardWork {
+        void run(int shard, Runnable checkLease);
+    }
+
+    /**
+     * Thrown by the lease check when this node no longer holds the shard
+     */
+    public static class LeaseLostException extends IllegalStateException {
+        public LeaseLostException(String lockName) {
+            super("Lease " + lockName + " lost");
+        }
+    }
+
+    /**
+     * Run the job and return the number of shards processed by this node
+     */
+    public int run(String jobName, int shardCount, Duration keepCompletedFor, ShardWork shardWork) {
+        List<String> nodes = nodeRegistry.getLiveNodes();
+        int nodeIndex = Math.max(0, nodes.indexOf(nodeRegistry.getNodeId()));
+        int offset = nodeIndex * shardCount / nodes.size();
+
+        Set<Integer> pending = new LinkedHashSet<>();
+        for (int i = 0; i < shardCount; i++) {
+            pending.add((offset + i) % shardCount);
+        }
+
+        Duration lease = Duration.ofMillis(leaseMs);
+        long deadline = System.currentTimeMillis() + takeoverWaitMs;
+        int processed = 0;
+
+        while (!pending.isEmpty()) {
+            Iterator<Integer> it = pending.iterator();
+            while (it.hasNext()) {
+                int shard = it.next();
+                String lockName = jobName + ":shard:" + shard;
+
+                LockState state;
+                try {
+                    state = lockService.getState(lockName);
+                } catch (Exception e) {
+                    log.warn("Job {} cannot read shard state, retrying after a pause: {}", jobName, e.getMessage());
+                    break;
+                }
+                if (state == LockState.COMPLETED) {
+                    it.remove();
+                    continue;
+                }
+                if (!lockService.tryAcquire(lockName, lease)) {
+                    continue;  // Another node is working on it
+                }
+
+                Runnable checkLease = () -> {
+                    if (!lockService.isHeld(lockName)) {
+                        throw new LeaseLostException(lockName);
+                    }
+                };
+                try {
+                    shardWork.run(shard, checkLease);
+                    checkLease.run();
+                    lockService.complete(lockName, keepCompletedFor);
+                    it.remove();
+                    processed++;
+                    log.debug("Job {} finished shard {}/{}", jobName, shard, shardCount);
+                } catch (LeaseLostException e) {
+                    // Stays pending: whoever holds it now completes it, or it is claimed again
+                    log.warn("Job {} lost the lease on shard {}, abandoning it", jobName, shard);
+                    lockService.release(lockName);  // No-op in Redis unless the key is still ours
+                } catch (Exception e) {
+                    // Stays pending: retried on the next pass, here or on another node
+                    log.error("Job {} failed on shard {}", jobName, shard, e);
+                    lockService.release(lockName);
+                }
+            }
+
+            if (pending.isEmpty() || System.currentTimeMillis() > deadline) {
+                break;
+            }
+
+            // Wait for the other nodes to finish, for a dead node's lease to lapse, or to retry failed shards
+            try {
+                Thread.sleep(leaseMs / 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            log.warn("Job {} gave up waiting for shards {}", jobName, pending);
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,73 @@
+#!/bin/bash
+
+# Webhook throughput with the dev logging setup (synchronous console, SQL logging)
+# versus the prod profile (async JSON appender, sampled per-message logs).
+#
+# Usage: ./logging-benchmark.sh [requests] [concurrency]
+# Needs postgres and redis running (docker-compose up -d postgres redis) and a built jar
+# (cd chatbot && ./gradlew bootJar). Telegram is replaced by a local stub.
+# The ingress rate limiter is off so every update takes the full (logged) path.
+
+set -e
+
+REQUESTS=${1:-5000}
+CONCURRENCY=${2:-32}
+PORT=18081
+STUB_PORT=19090
+JAR=$(ls chatbot/build/libs/*.jar | grep -v plain | head -1)
+
+if [ -z "$JAR" ]; then
+    echo "ERROR: jar not found. Build it first: cd chatbot && ./gradlew bootJar"
+    exit 1
+fi
+
+echo "=========================================="
+echo "Logging Benchmark - Telegram-Zoho Desk"
+echo "=========================================="
+echo "Requests: $REQUESTS, concurrency: $CONCURRENCY"
+echo ""
+
+# Stand-in for the Telegram Bot API
+python3 -c "
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+class H(BaseHTTPRequestHandler):
+    def do_POST(self):
+        self.rfile.read(int(self.headers['Content-Length']))
+        self.send_response(200); self.end_headers(); self.wfile.write(b'{\"ok\":true}')
+    def log_message(self, *args): pass
+ThreadingHTTPServer(('', $STUB_PORT), H).serve_forever()" &
+STUB_PID=$!
+trap 'kill $STUB_PID 2>/dev/null' EXIT
+
+send_updates() {
+    seq 1 "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} curl -s -o /dev/null -X POST \
+        "http://localhost:$PORT/webhook/telegram" -H "Content-Type: application/json" \
+        -d '{"update_id":{},"message":{"message_id":{},"date":1700000000,"text":"benchmark message {}",
+             "chat":{"id":{},"type":"private"},
+             "from":{"id":{},"is_bot":false,"first_name":"Bench","username":"bench"}}}'
+}
+
+for profile in dev prod; do
+    SERVER_PORT=$PORT TELEGRAM_BOT_TOKEN=benchmark APP_URL=http://localhost \
+    TELEGRAM_API_URL=http://localhost:$STUB_PORT CONVERSATION_CACHE_WARMUP_ENABLED=false \
+    INGRESS_RATE_LIMIT_ENABLED=false \
+        java -jar "$JAR" --spring.profiles.active=$profile > "/tmp/logging-benchmark-$profile.log" 2>&1 &
+    APP_PID=$!
+
+    until curl -sf "http://localhost:$PORT/admin/health" > /dev/null; do
+        sleep 0.5
+    done
+
+    # Warm up the JIT, then measure
+    REQUESTS=500 send_updates
+    start=$(date +%s%3N)
+    send_updates
+    elapsed=$(( $(date +%s%3N) - start ))
+
+    kill $APP_PID
+    wait $APP_PID 2>/dev/null || true
+
+    log_bytes=$(wc -c < "/tmp/logging-benchmark-$profile.log")
+    printf "%-6s %8d ms  %8.1f req/s  %10d bytes logged\n" \
+        "$profile" "$elapsed" "$(echo "$REQUESTS * 1000 / $elapsed" | bc -l)" "$log_bytes"
+done
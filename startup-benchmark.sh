@@ -0,0 +1,63 @@
+#!/bin/bash
+
+# Startup time / memory comparison of the Docker image variants
+# (plain JVM, Spring AOT + CDS, GraalVM native).
+#
+# Usage: ./startup-benchmark.sh [runs]
+# Needs the postgres and redis services from docker-compose to be up.
+
+set -e
+
+RUNS=${1:-3}
+NETWORK=${NETWORK:-$(docker network ls --format '{{.Name}}' | grep telegramdesk-network | head -1)}
+PORT=18080
+READY_TIMEOUT_S=${READY_TIMEOUT_S:-120}
+
+if [ -z "$NETWORK" ]; then
+    echo "ERROR: telegramdesk network not found. Start the stack first: docker-compose up -d postgres redis"
+    exit 1
+fi
+
+echo "=========================================="
+echo "Startup Benchmark - Telegram-Zoho Desk"
+echo "=========================================="
+echo "Network: $NETWORK, runs per variant: $RUNS"
+echo ""
+
+for target in runtime cds native; do
+    echo "Building image for target '$target'..."
+    docker build -q --target "$target" -t "telegramdesk:$target" . > /dev/null
+done
+
+printf "\n%-10s %-6s %-14s %-10s\n" "VARIANT" "RUN" "READY (ms)" "RSS (MB)"
+
+for target in runtime cds native; do
+    for run in $(seq 1 "$RUNS"); do
+        start=$(date +%s%3N)
+        cid=$(docker run -d --rm --network "$NETWORK" -p "$PORT:8080" \
+            -e DB_HOST=postgres -e REDIS_HOST=redis \
+            -e TELEGRAM_BOT_TOKEN=benchmark -e APP_URL=http://localhost \
+            "telegramdesk:$target")
+
+        # Ready = /admin/health returns 200 (includes cache warm-up)
+        deadline=$(( start + READY_TIMEOUT_S * 1000 ))
+        until curl -sf "http://localhost:$PORT/admin/health" > /dev/null; do
+            if [ "$(date +%s%3N)" -gt "$deadline" ]; then
+                echo "ERROR: '$target' not ready after ${READY_TIMEOUT_S}s, container logs:"
+                docker logs "$cid" 2>&1 | tail -50 || true
+                docker stop "$cid" > /dev/null 2>&1 || true
+                exit 1
+            fi
+            sleep 0.05
+        done
+        ready=$(( $(date +%s%3N) - start ))
+
+        rss_kb=$(docker exec "$cid" sh -c "grep VmRSS /proc/1/status" | awk '{print $2}')
+        printf "%-10s %-6s %-14s %-10s\n" "$target" "$run" "$ready" "$(( rss_kb / 1024 ))"
+
+        docker stop "$cid" > /dev/null
+    done
+done
+
+echo ""
+echo "Note: READY includes container start, so compare variants relative to each other."